@@ -0,0 +1,164 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.milkbowl.vault.economy.Economy;
+import org.bukkit.OfflinePlayer;
+
+/**
+ * Per-player Vault balances, refreshed in the background.
+ *
+ * <p>Economy providers are often database-backed, so chat never waits on them for long. A fresh
+ * entry is returned as is; a stale entry is returned immediately while a refresh runs on the
+ * executor. Only a player's first lookup from an async chat thread waits, and only up to the
+ * latency budget; the main thread never waits. Either way {@link #UNAVAILABLE} is shown until
+ * the refresh completes. A failed lookup is cached as unavailable for the same TTL, so a broken
+ * provider is not asked again on every message. Each refresh makes one {@code getBalance} call
+ * and formats both placeholder values from it.
+ */
+final class BalanceCache {
+
+  static final Balance UNAVAILABLE = new Balance("N/A", "N/A", 0L);
+
+  private final Economy economy;
+  private final Executor executor;
+  private final Logger logger;
+  private final BooleanSupplier primaryThread;
+  private final Map<UUID, Balance> balances = new ConcurrentHashMap<>();
+  private final Map<UUID, CompletableFuture<Balance>> refreshes = new ConcurrentHashMap<>();
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The economy provider, scheduler and logger are shared server services.")
+  BalanceCache(
+      final Economy economy,
+      final Executor executor,
+      final Logger logger,
+      final BooleanSupplier primaryThread) {
+    this.economy = economy;
+    this.executor = executor;
+    this.logger = logger;
+    this.primaryThread = primaryThread;
+  }
+
+  /**
+   * Returns the player's balance, refreshing it in the background when it is older than the
+   * TTL.
+   *
+   * @param player the player
+   * @param ttlMillis how long a balance is served without a refresh
+   * @param latencyBudgetMillis how long a first lookup may block an async caller
+   * @return the cached balance, or {@link #UNAVAILABLE}
+   */
+  Balance get(final OfflinePlayer player, final long ttlMillis, final long latencyBudgetMillis) {
+    if (this.economy == null) {
+      return UNAVAILABLE;
+    }
+
+    final UUID playerId = player.getUniqueId();
+    final Balance cached = this.balances.get(playerId);
+    if (cached != null) {
+      if (System.currentTimeMillis() - cached.loadedAt() >= ttlMillis) {
+        refresh(player);
+      }
+      return cached;
+    }
+
+    final CompletableFuture<Balance> refresh = refresh(player);
+    if (this.primaryThread.getAsBoolean()) {
+      return UNAVAILABLE;
+    }
+    try {
+      return refresh.get(latencyBudgetMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException | ExecutionException ex) {
+      return UNAVAILABLE;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return UNAVAILABLE;
+    }
+  }
+
+  /**
+   * Drops a player's balance. A refresh already running for the player is detached and will
+   * not store its result.
+   *
+   * @param playerId the player's UUID
+   */
+  void invalidate(final UUID playerId) {
+    this.refreshes.compute(playerId, (id, inFlight) -> {
+      this.balances.remove(id);
+      return null;
+    });
+  }
+
+  private CompletableFuture<Balance> refresh(final OfflinePlayer player) {
+    final UUID playerId = player.getUniqueId();
+    final CompletableFuture<Balance> pending = new CompletableFuture<>();
+    final CompletableFuture<Balance> inFlight = this.refreshes.putIfAbsent(playerId, pending);
+    if (inFlight != null) {
+      return inFlight;
+    }
+
+    try {
+      this.executor.execute(() -> {
+        Balance balance;
+        try {
+          balance = load(player);
+        } catch (RuntimeException ex) {
+          this.logger.log(Level.FINE, "Vault balance lookup failed for " + playerId, ex);
+          balance = new Balance(
+              UNAVAILABLE.plain(), UNAVAILABLE.formatted(), System.currentTimeMillis());
+        }
+        store(playerId, pending, balance);
+        pending.complete(balance);
+      });
+    } catch (RuntimeException ex) {
+      // The scheduler refuses new tasks while the plugin is disabling.
+      this.refreshes.remove(playerId, pending);
+      pending.completeExceptionally(ex);
+    }
+    return pending;
+  }
+
+  /**
+   * Stores a refreshed balance unless the player was invalidated while the refresh ran.
+   */
+  private void store(
+      final UUID playerId, final CompletableFuture<Balance> pending, final Balance balance) {
+    this.refreshes.computeIfPresent(playerId, (id, inFlight) -> {
+      if (inFlight != pending) {
+        return inFlight;
+      }
+      this.balances.put(id, balance);
+      return null;
+    });
+  }
+
+  private Balance load(final OfflinePlayer player) {
+    final double amount = this.economy.getBalance(player);
+    return new Balance(
+        String.format(Locale.ENGLISH, "%.2f", amount),
+        this.economy.format(amount),
+        System.currentTimeMillis());
+  }
+
+  /**
+   * A balance as shown by {balance} and {balance_formatted}.
+   *
+   * @param plain the balance with two decimals
+   * @param formatted the balance formatted by the economy provider
+   * @param loadedAt when the balance was read, in epoch milliseconds
+   */
+  record Balance(String plain, String formatted, long loadedAt) {}
+}
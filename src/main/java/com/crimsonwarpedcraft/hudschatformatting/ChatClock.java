@@ -0,0 +1,121 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * The {time} placeholder, compiled from chat.time-zone and chat.time-pattern.
+ *
+ * <p>The zone and formatter are built once per config load. The formatted text only changes
+ * once per second, or once per minute for patterns without a seconds field, so the last value
+ * is kept in a volatile immutable holder and shared by every chat thread without locking.
+ * Patterns with sub-second fields are formatted on every call.
+ */
+final class ChatClock {
+
+  private static final String DEFAULT_PATTERN = "HH:mm:ss";
+  private static final long SECOND_MILLIS = 1000L;
+  private static final long MINUTE_MILLIS = 60_000L;
+
+  private final ZoneId zone;
+  private final DateTimeFormatter formatter;
+  private final long resolutionMillis;
+  private volatile Tick last = new Tick(Long.MIN_VALUE, "");
+
+  private ChatClock(final ZoneId zone, final DateTimeFormatter formatter, final long resolution) {
+    this.zone = zone;
+    this.formatter = formatter;
+    this.resolutionMillis = resolution;
+  }
+
+  /**
+   * Compiles the configured zone and pattern, warning once about invalid values.
+   *
+   * @param configuredZone a zone id, or "server" for the server's zone
+   * @param configuredPattern a {@link DateTimeFormatter} pattern
+   * @param logger logger used to report invalid values
+   * @return the compiled clock
+   */
+  static ChatClock compile(
+      final String configuredZone, final String configuredPattern, final Logger logger) {
+    ZoneId zone = ZoneId.systemDefault();
+    if (configuredZone != null && !configuredZone.equalsIgnoreCase("server")) {
+      try {
+        zone = ZoneId.of(configuredZone);
+      } catch (DateTimeException ex) {
+        logger.warning("Invalid chat.time-zone in config, using server time zone.");
+      }
+    }
+
+    String pattern = configuredPattern == null ? DEFAULT_PATTERN : configuredPattern;
+    DateTimeFormatter formatter;
+    try {
+      formatter = DateTimeFormatter.ofPattern(pattern, Locale.ENGLISH);
+    } catch (IllegalArgumentException ex) {
+      logger.warning("Invalid chat.time-pattern in config, using " + DEFAULT_PATTERN + ".");
+      pattern = DEFAULT_PATTERN;
+      formatter = DateTimeFormatter.ofPattern(pattern, Locale.ENGLISH);
+    }
+    return new ChatClock(zone, formatter, resolutionOf(pattern));
+  }
+
+  /**
+   * Returns the current time in the configured zone and pattern.
+   */
+  String now() {
+    final long millis = System.currentTimeMillis();
+    if (this.resolutionMillis == 0L) {
+      return format(millis);
+    }
+
+    final long bucket = Math.floorDiv(millis, this.resolutionMillis);
+    final Tick cached = this.last;
+    if (cached.bucket() == bucket) {
+      return cached.text();
+    }
+
+    final String text = format(millis);
+    this.last = new Tick(bucket, text);
+    return text;
+  }
+
+  private String format(final long millis) {
+    return this.formatter.format(Instant.ofEpochMilli(millis).atZone(this.zone));
+  }
+
+  /**
+   * Returns how long a formatted value stays valid: 0 for sub-second fields, a second for
+   * seconds fields, otherwise a minute. Quoted literals are skipped.
+   */
+  private static long resolutionOf(final String pattern) {
+    long resolution = MINUTE_MILLIS;
+    boolean quoted = false;
+    for (int index = 0; index < pattern.length(); index++) {
+      final char character = pattern.charAt(index);
+      if (character == '\'') {
+        quoted = !quoted;
+        continue;
+      }
+      if (quoted) {
+        continue;
+      }
+
+      switch (character) {
+        case 'S', 'n', 'N', 'A' -> {
+          return 0L;
+        }
+        case 's' -> resolution = SECOND_MILLIS;
+        default -> {
+          // Other fields change at most once a minute.
+        }
+      }
+    }
+    return resolution;
+  }
+
+  private record Tick(long bucket, String text) {}
+}
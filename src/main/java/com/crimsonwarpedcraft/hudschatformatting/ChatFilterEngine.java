@@ -0,0 +1,143 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Chat filter with every blocked keyword and replacement rule compiled up front.
+ *
+ * <p>Plain blocked keywords share one {@link KeywordMatcher}, so the block check is a single pass
+ * over the message regardless of list size. Only "regex:" rules are checked one pattern at a
+ * time. Replacement rules are applied in one pass by a {@link ReplacementEngine}.
+ *
+ * <p>Instances are immutable and safe to share between chat threads. A new engine is compiled
+ * whenever the plugin settings are rebuilt, so invalid regex rules are reported once per load
+ * instead of once per message.
+ */
+final class ChatFilterEngine {
+
+  private static final String REGEX_PREFIX = "regex:";
+
+  private final KeywordMatcher blockedKeywords;
+  private final List<Pattern> blockedPatterns;
+  private final ReplacementEngine replacements;
+  private final boolean replacementsBeforeBlockCheck;
+
+  private ChatFilterEngine(
+      final KeywordMatcher blockedKeywords,
+      final List<Pattern> blockedPatterns,
+      final ReplacementEngine replacements,
+      final boolean replacementsBeforeBlockCheck) {
+    this.blockedKeywords = blockedKeywords;
+    this.blockedPatterns = List.copyOf(blockedPatterns);
+    this.replacements = replacements;
+    this.replacementsBeforeBlockCheck = replacementsBeforeBlockCheck;
+  }
+
+  /**
+   * Compiles the configured filter rules.
+   *
+   * @param blockedKeywords blocked keyword rules, plain text or prefixed with "regex:"
+   * @param replacementRules replacement rules keyed by match rule, in config order
+   * @param caseSensitive whether plain and regex rules match case-sensitively
+   * @param wholeWordOnly whether plain rules only match whole words
+   * @param replacementsBeforeBlockCheck whether replacements run before the block check
+   * @param logger logger used to report invalid regex rules
+   * @return the compiled engine
+   */
+  static ChatFilterEngine compile(
+      final List<String> blockedKeywords,
+      final Map<String, String> replacementRules,
+      final boolean caseSensitive,
+      final boolean wholeWordOnly,
+      final boolean replacementsBeforeBlockCheck,
+      final Logger logger) {
+    final List<String> plainBlocked = new ArrayList<>(blockedKeywords.size());
+    final List<Pattern> regexBlocked = new ArrayList<>();
+    for (final String keyword : blockedKeywords) {
+      if (keyword == null || keyword.isBlank()) {
+        continue;
+      }
+      if (isRegexRule(keyword)) {
+        regexBlocked.add(compileRulePattern(keyword, caseSensitive, wholeWordOnly, logger));
+      } else {
+        plainBlocked.add(keyword);
+      }
+    }
+
+    return new ChatFilterEngine(
+        KeywordMatcher.compile(plainBlocked, caseSensitive, wholeWordOnly),
+        regexBlocked,
+        ReplacementEngine.compile(replacementRules, caseSensitive, wholeWordOnly, logger),
+        replacementsBeforeBlockCheck);
+  }
+
+  /**
+   * Applies replacement rules and the blocked keyword check to a chat message.
+   *
+   * @param message the plain chat message
+   * @return the filter decision and the message to broadcast
+   */
+  Result evaluate(final String message) {
+    if (!this.replacementsBeforeBlockCheck && containsBlockedKeyword(message)) {
+      return new Result(true, message);
+    }
+
+    final String replaced = this.replacements.apply(message);
+    if (containsBlockedKeyword(replaced)) {
+      return new Result(true, message);
+    }
+
+    return new Result(false, replaced);
+  }
+
+  private boolean containsBlockedKeyword(final String message) {
+    if (this.blockedKeywords.matches(message)) {
+      return true;
+    }
+    for (final Pattern pattern : this.blockedPatterns) {
+      if (pattern.matcher(message).find()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static Pattern compileRulePattern(
+      final String rule,
+      final boolean caseSensitive,
+      final boolean wholeWordOnly,
+      final Logger logger) {
+    final boolean regexRule = isRegexRule(rule);
+    final String patternText = regexRule
+        ? rule.substring(REGEX_PREFIX.length())
+        : Pattern.quote(rule);
+    final String boundedPattern = !regexRule && wholeWordOnly
+        ? "\\b" + patternText + "\\b"
+        : patternText;
+    final int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+
+    try {
+      return Pattern.compile(boundedPattern, flags);
+    } catch (PatternSyntaxException ex) {
+      logger.warning("Invalid chat.filter regex rule: " + rule);
+      return Pattern.compile(Pattern.quote(rule), flags);
+    }
+  }
+
+  static boolean isRegexRule(final String rule) {
+    return rule.regionMatches(true, 0, REGEX_PREFIX, 0, REGEX_PREFIX.length());
+  }
+
+  /**
+   * Result of filtering one chat message.
+   *
+   * @param blocked true if the message must not be broadcast
+   * @param message the message after replacements, or the original message when blocked
+   */
+  record Result(boolean blocked, String message) {}
+}
@@ -1,32 +1,34 @@
 package com.crimsonwarpedcraft.hudschatformatting;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.papermc.paper.chat.ChatRenderer;
 import io.papermc.paper.event.player.AsyncChatEvent;
-import java.time.DateTimeException;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
+import java.util.function.UnaryOperator;
 import me.clip.placeholderapi.PlaceholderAPI;
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.TranslatableComponent;
 import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import net.luckperms.api.LuckPerms;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.context.ContextUpdateEvent;
+import net.luckperms.api.event.group.GroupDataRecalculateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
 import net.luckperms.api.model.user.User;
 import net.luckperms.api.query.QueryOptions;
 import net.milkbowl.vault.chat.Chat;
 import net.milkbowl.vault.economy.Economy;
+import org.bukkit.NamespacedKey;
 import org.bukkit.World;
 import org.bukkit.advancement.Advancement;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
@@ -34,10 +36,14 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.PlayerAdvancementDoneEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.metadata.MetadataValue;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -50,45 +56,43 @@ import org.bukkit.projectiles.ProjectileSource;
  */
 public final class ChatFormatListener implements Listener {
 
-  private static final String MESSAGE_PLACEHOLDER = "{message}";
-  private static final String DEFAULT_FORMAT = "&7[{time}] {prefix}&f{player}&7: {message}";
-  private static final String VANILLA_TEMPLATE_TOKEN = "{vanilla}";
-  private static final String DEFAULT_JOIN_MESSAGE = VANILLA_TEMPLATE_TOKEN;
-  private static final String DEFAULT_LEAVE_MESSAGE = VANILLA_TEMPLATE_TOKEN;
-  private static final String DEFAULT_DEATH_MESSAGE = VANILLA_TEMPLATE_TOKEN;
-  private static final String DEFAULT_ADVANCEMENT_MESSAGE = VANILLA_TEMPLATE_TOKEN;
+  private static final String RELATIONAL_PLACEHOLDER_MARKER = "%rel_";
   private static final long RECENT_EVENT_WINDOW_MS = 5000L;
   private static final String VANILLA_JOIN_SUFFIX = " joined the game";
   private static final String VANILLA_LEAVE_SUFFIX = " left the game";
-  private static final char SECTION_SIGN = (char) 167;
-  private static final String BALANCE_UNAVAILABLE = "N/A";
-  private static final List<String> NICKNAME_PLACEHOLDER_CANDIDATES = List.of(
-      "%hexnicks_nickname%",
-      "%hexnicks_name%",
-      "%hexnicks_displayname%",
-      "%essentials_nickname%",
-      "%cmi_user_nickname%");
-  private static final Pattern HEX_AMPERSAND_PATTERN =
-      Pattern.compile("(?i)&?#([0-9a-f]{6})");
-  private static final LegacyComponentSerializer AMPERSAND_SERIALIZER =
-      LegacyComponentSerializer.builder().character('&').hexColors().build();
-  private static final LegacyComponentSerializer SECTION_SERIALIZER =
-      LegacyComponentSerializer.builder().character(SECTION_SIGN).hexColors().build();
+  private static final char VANILLA_SUFFIX_LAST_CHAR = 'e';
+  private static final int VANILLA_SUFFIX_MIN_LENGTH =
+      Math.min(VANILLA_JOIN_SUFFIX.length(), VANILLA_LEAVE_SUFFIX.length()) + 1;
+  private static final Map<String, String> VANILLA_JOIN_LEAVE_KEYS = Map.of(
+      "multiplayer.player.joined", "join",
+      "multiplayer.player.joined.renamed", "join",
+      "multiplayer.player.left", "leave");
+  private static final int TRANSLATION_SEARCH_DEPTH = 4;
+  private static final long VAULT_PREFIX_TTL_MS = 5000L;
+  private static final long NICKNAME_TTL_MS = 5000L;
+  private static final long PERMISSION_TTL_MS = 5000L;
+  private static final long LUCKPERMS_TTL_MS = 60000L;
   private static final PlainTextComponentSerializer PLAIN_TEXT_SERIALIZER =
       PlainTextComponentSerializer.plainText();
 
   private final HudsChatFormattingPlugin plugin;
   private final LuckPerms luckPerms;
   private final Chat vaultChat;
-  private final Economy economy;
+  private final BalanceCache balanceCache;
+  private final ChatPermissions chatPermissions;
+  private final ComponentCache components;
+  private final NameRewriter nameRewriter;
   private final boolean placeholderApiEnabled;
-  private final boolean multiverseEnabled;
-  private final Map<String, Long> recentJoins = new LinkedHashMap<>();
-  private final Map<String, Long> recentLeaves = new LinkedHashMap<>();
-  private final Map<UUID, Boolean> vanishStates = new LinkedHashMap<>();
-  private java.lang.reflect.Method vanishCanSeeMethod;
-  private boolean vanishCanSeeResolved;
-  private int vanishPollTaskId = -1;
+  private final IntegrationRegistry integrations;
+  private final RecentNames recentJoins = new RecentNames(RECENT_EVENT_WINDOW_MS);
+  private final RecentNames recentLeaves = new RecentNames(RECENT_EVENT_WINDOW_MS);
+  private final PlayerCache<String> prefixCache = new PlayerCache<>();
+  private final PlayerCache<String> nicknameCache = new PlayerCache<>();
+  private final NicknamePlaceholders nicknamePlaceholders;
+  private final WorldLabelCache worldLabels = new WorldLabelCache();
+  private final LegacyCodeNormalizer legacyCodes = new LegacyCodeNormalizer();
+  private final VanishTracker vanishTracker;
+  private final VanishVisibility vanishVisibility;
 
   /**
    * Creates a new listener.
@@ -98,7 +102,7 @@ public final class ChatFormatListener implements Listener {
    * @param vaultChat the Vault chat provider, if available
    * @param economy the Vault economy provider, if available
    * @param placeholderApiEnabled true if PlaceholderAPI is available
-   * @param multiverseEnabled true if Multiverse-Core is available
+   * @param integrations bindings for vanish, Essentials, LibsDisguises and Multiverse
    */
   @SuppressFBWarnings(
       value = "EI_EXPOSE_REP2",
@@ -109,13 +113,35 @@ public final class ChatFormatListener implements Listener {
       final Chat vaultChat,
       final Economy economy,
       final boolean placeholderApiEnabled,
-      final boolean multiverseEnabled) {
+      final IntegrationRegistry integrations) {
     this.plugin = plugin;
     this.luckPerms = luckPerms;
     this.vaultChat = vaultChat;
-    this.economy = economy;
+    this.balanceCache = new BalanceCache(
+        economy,
+        task -> plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task),
+        plugin.getLogger(),
+        plugin.getServer()::isPrimaryThread);
+    this.components = plugin.getComponentCache();
+    this.nameRewriter = new NameRewriter(this.components);
+    this.chatPermissions =
+        new ChatPermissions(luckPerms == null ? PERMISSION_TTL_MS : LUCKPERMS_TTL_MS);
     this.placeholderApiEnabled = placeholderApiEnabled;
-    this.multiverseEnabled = multiverseEnabled;
+    this.integrations = integrations;
+    this.nicknamePlaceholders = placeholderApiEnabled ? new NicknamePlaceholders() : null;
+    this.vanishVisibility = new VanishVisibility(integrations);
+    this.vanishTracker = new VanishTracker(
+        plugin,
+        this::isVanishDebugEnabled,
+        this::settings,
+        this::mayVanishWithoutEvents,
+        this::isPlayerVanished,
+        (player, vanished) -> {
+          if (vanished) {
+            relearnVanishVisibility(player);
+          }
+          sendVanishJoinLeaveMessage(player, vanished ? "leave" : "join");
+        });
   }
 
   /**
@@ -126,7 +152,124 @@ public final class ChatFormatListener implements Listener {
     registerVanishEvent("de.myzelyam.api.vanish.PlayerHideEvent", "leave");
     registerVanishEvent("de.myzelyam.api.vanish.PlayerShowEvent", "join");
     registerVanishEvent("de.myzelyam.api.vanish.VanishStatusChangeEvent", null);
-    startVanishStatePolling();
+    this.vanishTracker.start();
+  }
+
+  /**
+   * Listens for PlaceholderAPI expansion changes so the nickname placeholder is re-detected.
+   */
+  public void registerNicknameExpansionHooks() {
+    if (this.nicknamePlaceholders != null) {
+      this.plugin.getServer().getPluginManager()
+          .registerEvents(this.nicknamePlaceholders, this.plugin);
+    }
+  }
+
+  /**
+   * Subscribes to LuckPerms data and context changes so cached prefixes and permissions are
+   * refreshed. Subscriptions are closed by LuckPerms when this plugin disables.
+   */
+  public void registerLuckPermsInvalidationHooks() {
+    if (this.luckPerms == null) {
+      return;
+    }
+
+    final EventBus eventBus = this.luckPerms.getEventBus();
+    eventBus.subscribe(this.plugin, UserDataRecalculateEvent.class,
+        event -> invalidatePermissionData(event.getUser().getUniqueId()));
+    eventBus.subscribe(this.plugin, GroupDataRecalculateEvent.class, event -> {
+      this.prefixCache.invalidateAll();
+      this.chatPermissions.invalidateAll();
+    });
+    eventBus.subscribe(this.plugin, ContextUpdateEvent.class,
+        event -> event.getSubject(Player.class)
+            .ifPresent(player -> invalidatePermissionData(player.getUniqueId())));
+  }
+
+  private void invalidatePermissionData(final UUID playerId) {
+    if (this.plugin.getServer().getPlayer(playerId) == null) {
+      return;
+    }
+    this.prefixCache.invalidate(playerId);
+    this.chatPermissions.invalidate(playerId);
+  }
+
+  /**
+   * Drops the cached prefix and permissions when a player changes world, since both can be
+   * world-specific.
+   *
+   * @param event the world change event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerChangedWorld(final PlayerChangedWorldEvent event) {
+    invalidatePermissionData(event.getPlayer().getUniqueId());
+  }
+
+  /**
+   * Computes chat permissions up front so the first message does not check them.
+   *
+   * @param event the join event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerJoinPermissions(final PlayerJoinEvent event) {
+    this.chatPermissions.refresh(event.getPlayer(), settings());
+  }
+
+  /**
+   * Adds the joining player to the residual vanish poll if they could vanish without events,
+   * and records whether they can see each player who is currently vanished.
+   *
+   * @param event the join event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerJoinVanish(final PlayerJoinEvent event) {
+    this.vanishTracker.track(event.getPlayer());
+    this.vanishVisibility.learnViewer(
+        event.getPlayer(), this.plugin.getServer().getOnlinePlayers());
+  }
+
+  /**
+   * Returns the residual vanish poll, for the probe counters shown by /hcf cache.
+   */
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP",
+      justification = "The admin command reads the live probe counters.")
+  VanishTracker getVanishTracker() {
+    return this.vanishTracker;
+  }
+
+  /**
+   * Drops cached world labels for a newly loaded world.
+   *
+   * @param event the world load event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onWorldLoad(final WorldLoadEvent event) {
+    this.worldLabels.invalidate(event.getWorld());
+  }
+
+  /**
+   * Drops cached world labels for an unloaded world.
+   *
+   * @param event the world unload event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onWorldUnload(final WorldUnloadEvent event) {
+    this.worldLabels.invalidate(event.getWorld());
+  }
+
+  /**
+   * Drops per-player caches once the quit message has been rendered.
+   *
+   * @param event the quit event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerQuitCleanup(final PlayerQuitEvent event) {
+    final UUID playerId = event.getPlayer().getUniqueId();
+    this.prefixCache.forget(playerId);
+    this.nicknameCache.forget(playerId);
+    this.balanceCache.invalidate(playerId);
+    this.chatPermissions.forget(playerId);
   }
 
   /**
@@ -138,7 +281,7 @@ public final class ChatFormatListener implements Listener {
   public void onAsyncChat(final AsyncChatEvent event) {
     final Player player = event.getPlayer();
     final String plainMessage = PLAIN_TEXT_SERIALIZER.serialize(event.message());
-    final FilterResult filterResult = applyChatFilter(player, plainMessage);
+    final ChatFilterEngine.Result filterResult = applyChatFilter(player, plainMessage);
     if (filterResult.blocked()) {
       event.setCancelled(true);
       sendBlockedMessageNotice(player, plainMessage);
@@ -148,23 +291,13 @@ public final class ChatFormatListener implements Listener {
     // Write filtered text back to the event so other plugins/renderers receive it too.
     event.message(Component.text(filterResult.message()));
 
-    final String prefix = getResolvedPrefix(player);
-    final String formatted = applyFormatPlaceholders(player, prefix);
-    int messagePosition = formatted.indexOf(MESSAGE_PLACEHOLDER);
-    String output = formatted;
-    if (messagePosition < 0) {
-      output = formatted + " " + MESSAGE_PLACEHOLDER;
-      messagePosition = output.indexOf(MESSAGE_PLACEHOLDER);
-    }
-
-    final String before = output.substring(0, messagePosition);
-    final String after = output.substring(messagePosition + MESSAGE_PLACEHOLDER.length());
-    final Component beforeComponent = parseTemplateText(before);
-    final Component afterComponent = parseTemplateText(after);
-
-    event.renderer((source, sourceDisplayName, message, viewer) -> beforeComponent
-        .append(buildPlayerMessage(player, message, prefix))
-        .append(afterComponent));
+    final ChatSettings settings = settings();
+    final String prefix = settings.chatUsesPrefix() ? getResolvedPrefix(player) : "";
+    final GeneralPlaceholders placeholders = new GeneralPlaceholders(player, prefix);
+    final String before = renderTemplate(player, settings.format().before(), placeholders);
+    final String after = renderTemplate(player, settings.format().after(), placeholders);
+    event.renderer(createChatRenderer(
+        player, before, after, prefix, isCacheable(settings.format())));
   }
 
   /**
@@ -177,7 +310,7 @@ public final class ChatFormatListener implements Listener {
     final Player player = event.getPlayer();
     trackRecentJoin(player);
     final Component vanillaMessage = event.joinMessage();
-    if (!isMessageEnabled("messages.join.enabled", true)) {
+    if (!settings().join().enabled()) {
       event.joinMessage(null);
       return;
     }
@@ -186,9 +319,9 @@ public final class ChatFormatListener implements Listener {
       return;
     }
 
-    final String template = getJoinOrLeaveTemplate(player, "join", DEFAULT_JOIN_MESSAGE);
-    if (isVanillaTemplate(template)) {
-      if (!usePrefixedNicknamesInVanillaMessages()) {
+    final ChatTemplate template = getJoinOrLeaveTemplate(player, "join");
+    if (template.isVanilla()) {
+      if (!settings().prefixedNicknamesInVanilla()) {
         event.joinMessage(vanillaMessage);
         return;
       }
@@ -197,9 +330,9 @@ public final class ChatFormatListener implements Listener {
       return;
     }
 
-    final String rendered = applyGeneralPlaceholders(player, template, "")
-        .replace("{event}", "join");
-    event.joinMessage(AMPERSAND_SERIALIZER.deserialize(rendered));
+    final String rendered =
+        renderTemplate(player, template, eventPlaceholders(player, "join"));
+    event.joinMessage(this.components.deserialize(rendered, isCacheable(template)));
   }
 
   /**
@@ -211,9 +344,10 @@ public final class ChatFormatListener implements Listener {
   public void onPlayerQuit(final PlayerQuitEvent event) {
     final Player player = event.getPlayer();
     trackRecentLeave(player);
-    clearVanishState(player);
+    this.vanishTracker.forget(player);
+    this.vanishVisibility.forget(player);
     final Component vanillaMessage = event.quitMessage();
-    if (!isMessageEnabled("messages.leave.enabled", true)) {
+    if (!settings().leave().enabled()) {
       event.quitMessage(null);
       return;
     }
@@ -222,9 +356,9 @@ public final class ChatFormatListener implements Listener {
       return;
     }
 
-    final String template = getJoinOrLeaveTemplate(player, "leave", DEFAULT_LEAVE_MESSAGE);
-    if (isVanillaTemplate(template)) {
-      if (!usePrefixedNicknamesInVanillaMessages()) {
+    final ChatTemplate template = getJoinOrLeaveTemplate(player, "leave");
+    if (template.isVanilla()) {
+      if (!settings().prefixedNicknamesInVanilla()) {
         event.quitMessage(vanillaMessage);
         return;
       }
@@ -233,9 +367,9 @@ public final class ChatFormatListener implements Listener {
       return;
     }
 
-    final String rendered = applyGeneralPlaceholders(player, template, "")
-        .replace("{event}", "leave");
-    event.quitMessage(AMPERSAND_SERIALIZER.deserialize(rendered));
+    final String rendered =
+        renderTemplate(player, template, eventPlaceholders(player, "leave"));
+    event.quitMessage(this.components.deserialize(rendered, isCacheable(template)));
   }
 
   /**
@@ -246,7 +380,7 @@ public final class ChatFormatListener implements Listener {
   @EventHandler(priority = EventPriority.HIGH)
   public void onPlayerDeath(final PlayerDeathEvent event) {
     final Component baseDeathMessage = event.deathMessage();
-    if (!isMessageEnabled("messages.death.enabled", true)) {
+    if (!settings().death().enabled()) {
       event.deathMessage(null);
       return;
     }
@@ -257,9 +391,9 @@ public final class ChatFormatListener implements Listener {
       return;
     }
     final DeathContext deathContext = getDeathContext(player);
-    final String template = getDeathTemplate(deathContext);
-    if (isVanillaTemplate(template)) {
-      if (!usePrefixedNicknamesInVanillaMessages()) {
+    final ChatTemplate template = getDeathTemplate(deathContext);
+    if (template.isVanilla()) {
+      if (!settings().prefixedNicknamesInVanilla()) {
         event.deathMessage(baseDeathMessage);
         return;
       }
@@ -267,26 +401,16 @@ public final class ChatFormatListener implements Listener {
       return;
     }
 
-    String defaultMessage;
-    if (baseDeathMessage == null) {
-      defaultMessage = player.getName() + " died.";
-    } else {
-      defaultMessage = rewritePlainName(
-          PLAIN_TEXT_SERIALIZER.serialize(baseDeathMessage),
-          player.getName(),
-          getVanillaFormattedName(player));
-      defaultMessage = rewritePlainName(
-          defaultMessage,
-          deathContext.killerPlayerName(),
-          deathContext.killerDecoratedName());
-    }
-    final String rendered = applyGeneralPlaceholders(player, template, "")
-        .replace("{event}", "death")
-        .replace("{death_message}", defaultMessage)
-        .replace("{death_cause}", deathContext.causeKey())
-        .replace("{killer}", deathContext.killerName())
-        .replace("{killer_type}", deathContext.killerTypeKey());
-    event.deathMessage(AMPERSAND_SERIALIZER.deserialize(rendered));
+    final GeneralPlaceholders placeholders = new GeneralPlaceholders(player, "");
+    final String rendered = renderTemplate(player, template, placeholder -> switch (placeholder) {
+      case EVENT -> "death";
+      case DEATH_MESSAGE -> getDefaultDeathMessage(baseDeathMessage, player, deathContext);
+      case DEATH_CAUSE -> deathContext.causeKey();
+      case KILLER -> deathContext.killerName();
+      case KILLER_TYPE -> deathContext.killerTypeKey();
+      default -> placeholders.resolve(placeholder);
+    });
+    event.deathMessage(this.components.deserialize(rendered, isCacheable(template)));
   }
 
   /**
@@ -297,7 +421,7 @@ public final class ChatFormatListener implements Listener {
   @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
   public void onPlayerAdvancementDone(final PlayerAdvancementDoneEvent event) {
     final Component baseMessage = event.message();
-    if (!isMessageEnabled("messages.advancement.enabled", true)) {
+    if (!settings().advancement().enabled()) {
       event.message(null);
       return;
     }
@@ -308,10 +432,10 @@ public final class ChatFormatListener implements Listener {
       return;
     }
     final Advancement advancement = event.getAdvancement();
-    final String key = advancement.getKey().toString();
-    final String template = getAdvancementTemplate(key);
-    if (isVanillaTemplate(template)) {
-      if (!usePrefixedNicknamesInVanillaMessages()) {
+    final NamespacedKey advancementKey = advancement.getKey();
+    final ChatTemplate template = getAdvancementTemplate(advancementKey);
+    if (template.isVanilla()) {
+      if (!settings().prefixedNicknamesInVanilla()) {
         event.message(baseMessage);
         return;
       }
@@ -320,15 +444,17 @@ public final class ChatFormatListener implements Listener {
       return;
     }
 
-    final String vanillaMessage = baseMessage == null
-        ? key
-        : PLAIN_TEXT_SERIALIZER.serialize(baseMessage);
-    final String rendered = applyGeneralPlaceholders(player, template, "")
-        .replace("{event}", "advancement")
-        .replace("{advancement_key}", key)
-        .replace("{advancement_message}", vanillaMessage)
-        .replace("{advancement_title}", getAdvancementTitle(event));
-    event.message(AMPERSAND_SERIALIZER.deserialize(rendered));
+    final GeneralPlaceholders placeholders = new GeneralPlaceholders(player, "");
+    final String rendered = renderTemplate(player, template, placeholder -> switch (placeholder) {
+      case EVENT -> "advancement";
+      case ADVANCEMENT_KEY -> advancementKey.toString();
+      case ADVANCEMENT_MESSAGE -> baseMessage == null
+          ? advancementKey.toString()
+          : PLAIN_TEXT_SERIALIZER.serialize(baseMessage);
+      case ADVANCEMENT_TITLE -> getAdvancementTitle(event);
+      default -> placeholders.resolve(placeholder);
+    });
+    event.message(this.components.deserialize(rendered, isCacheable(template)));
   }
 
   /**
@@ -339,12 +465,7 @@ public final class ChatFormatListener implements Listener {
   @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
   public void onBroadcastMessage(final org.bukkit.event.server.BroadcastMessageEvent event) {
     final Component baseMessage = event.message();
-    final String plainText = PLAIN_TEXT_SERIALIZER.serialize(baseMessage).trim();
-    if (plainText.isBlank()) {
-      return;
-    }
-
-    final VanillaBroadcast broadcast = parseVanillaJoinLeave(plainText);
+    final VanillaBroadcast broadcast = recognizeVanillaJoinLeave(baseMessage);
     if (broadcast == null) {
       return;
     }
@@ -358,7 +479,7 @@ public final class ChatFormatListener implements Listener {
     }
 
     final String type = broadcast.type();
-    if (!isMessageEnabled("messages." + type + ".enabled", true)) {
+    if (!settings().messages(type).enabled()) {
       event.setCancelled(true);
       return;
     }
@@ -367,14 +488,9 @@ public final class ChatFormatListener implements Listener {
       return;
     }
 
-    final String fallback = switch (type) {
-      case "join" -> DEFAULT_JOIN_MESSAGE;
-      case "leave" -> DEFAULT_LEAVE_MESSAGE;
-      default -> DEFAULT_JOIN_MESSAGE;
-    };
-    final String template = getJoinOrLeaveTemplate(player, type, fallback);
-    if (isVanillaTemplate(template)) {
-      if (!usePrefixedNicknamesInVanillaMessages()) {
+    final ChatTemplate template = getJoinOrLeaveTemplate(player, type);
+    if (template.isVanilla()) {
+      if (!settings().prefixedNicknamesInVanilla()) {
         return;
       }
       event.message(rewriteVanillaMessage(
@@ -382,9 +498,9 @@ public final class ChatFormatListener implements Listener {
       return;
     }
 
-    final String rendered = applyGeneralPlaceholders(player, template, "")
-        .replace("{event}", type);
-    event.message(AMPERSAND_SERIALIZER.deserialize(rendered));
+    final String rendered =
+        renderTemplate(player, template, eventPlaceholders(player, type));
+    event.message(this.components.deserialize(rendered, isCacheable(template)));
   }
 
   private void registerVanishEvent(final String className, final String fixedType) {
@@ -427,41 +543,41 @@ public final class ChatFormatListener implements Listener {
     }
 
     suppressVanishEventMessages(event);
-    updateVanishState(player, "leave".equals(type));
+    final boolean vanished = "leave".equals(type);
+    if (this.vanishTracker.record(player, vanished) && vanished) {
+      relearnVanishVisibility(player);
+    }
     sendVanishJoinLeaveMessage(player, type);
   }
 
+  /**
+   * Drops a newly vanished player's old canSee answers and records fresh ones from every online
+   * viewer on the next tick, once the vanish plugin has hidden them.
+   */
+  private void relearnVanishVisibility(final Player player) {
+    this.vanishVisibility.invalidate(player);
+    this.plugin.getServer().getScheduler().runTask(this.plugin, () -> {
+      if (player.isOnline()) {
+        this.vanishVisibility.learnTarget(player, this.plugin.getServer().getOnlinePlayers());
+      }
+    });
+  }
+
   private Player getPlayerFromEvent(final Event event) {
-    if (event == null) {
-      return null;
-    }
-    try {
-      final java.lang.reflect.Method getPlayer = event.getClass().getMethod("getPlayer");
-      final Object value = getPlayer.invoke(event);
-      return value instanceof Player ? (Player) value : null;
-    } catch (ReflectiveOperationException ex) {
-      return null;
-    }
+    return this.integrations.getPlayer(event);
   }
 
   private String resolveVanishType(final Event event) {
-    final boolean vanished = invokeBooleanGetter(event, "isVanished");
-    if (vanished) {
-      return "leave";
-    }
-
-    final boolean vanishing = invokeBooleanGetter(event, "isVanishing");
-    if (vanishing) {
+    final IntegrationRegistry integrations = this.integrations;
+    if (integrations.getBoolean(event, IntegrationRegistry.IS_VANISHED)
+        || integrations.getBoolean(event, IntegrationRegistry.IS_VANISHING)
+        || integrations.getBoolean(event, IntegrationRegistry.IS_INVISIBLE)) {
       return "leave";
     }
 
-    final boolean invisible = invokeBooleanGetter(event, "isInvisible");
-    if (invisible) {
-      return "leave";
-    }
-
-    if (hasMethod(event, "isVanished") || hasMethod(event, "isVanishing")
-        || hasMethod(event, "isInvisible")) {
+    if (integrations.hasMethod(event, IntegrationRegistry.IS_VANISHED)
+        || integrations.hasMethod(event, IntegrationRegistry.IS_VANISHING)
+        || integrations.hasMethod(event, IntegrationRegistry.IS_INVISIBLE)) {
       return "join";
     }
 
@@ -475,54 +591,15 @@ public final class ChatFormatListener implements Listener {
     return null;
   }
 
-  private boolean invokeBooleanGetter(final Object target, final String methodName) {
-    if (target == null) {
-      return false;
-    }
-    try {
-      final java.lang.reflect.Method method = target.getClass().getMethod(methodName);
-      final Object value = method.invoke(target);
-      return value instanceof Boolean && (Boolean) value;
-    } catch (ReflectiveOperationException ex) {
-      return false;
-    }
-  }
-
-  private boolean hasMethod(final Object target, final String methodName) {
-    if (target == null) {
-      return false;
-    }
-    try {
-      target.getClass().getMethod(methodName);
-      return true;
-    } catch (ReflectiveOperationException ex) {
-      return false;
-    }
-  }
-
   private void suppressVanishEventMessages(final Event event) {
-    invokeBooleanSetter(event, "setSilent", true);
-    invokeBooleanSetter(event, "setSendMessage", false);
-    invokeBooleanSetter(event, "setBroadcast", false);
-    invokeBooleanSetter(event, "setAnnounce", false);
-  }
-
-  private void invokeBooleanSetter(
-      final Object target, final String methodName, final boolean value) {
-    if (target == null) {
-      return;
-    }
-    try {
-      final java.lang.reflect.Method method =
-          target.getClass().getMethod(methodName, boolean.class);
-      method.invoke(target, value);
-    } catch (ReflectiveOperationException ex) {
-      // Ignore missing setters from specific vanish APIs.
-    }
+    this.integrations.setBoolean(event, IntegrationRegistry.SET_SILENT, true);
+    this.integrations.setBoolean(event, IntegrationRegistry.SET_SEND_MESSAGE, false);
+    this.integrations.setBoolean(event, IntegrationRegistry.SET_BROADCAST, false);
+    this.integrations.setBoolean(event, IntegrationRegistry.SET_ANNOUNCE, false);
   }
 
   private void sendVanishJoinLeaveMessage(final Player player, final String type) {
-    if (!isMessageEnabled("messages." + type + ".enabled", true)) {
+    if (!settings().messages(type).enabled()) {
       return;
     }
     if (shouldSuppressPlayerMessage(type, player, true)) {
@@ -540,25 +617,25 @@ public final class ChatFormatListener implements Listener {
     } else if ("leave".equals(type)) {
       markRecent(recentLeaves, player.getName());
     }
-    sendVanishMessageToRecipients(player, rendered);
+    sendVanishMessageToRecipients(player, type, rendered);
   }
 
   private Component buildJoinLeaveComponent(
       final Player player,
       final String type,
       final Component vanillaMessage) {
-    final String template = getJoinOrLeaveTemplate(player, type, DEFAULT_JOIN_MESSAGE);
-    if (isVanillaTemplate(template)) {
-      if (!usePrefixedNicknamesInVanillaMessages()) {
+    final ChatTemplate template = getJoinOrLeaveTemplate(player, type);
+    if (template.isVanilla()) {
+      if (!settings().prefixedNicknamesInVanilla()) {
         return vanillaMessage;
       }
       return rewriteVanillaMessage(
           vanillaMessage, Map.of(player.getName(), getVanillaFormattedName(player)));
     }
 
-    final String rendered = applyGeneralPlaceholders(player, template, "")
-        .replace("{event}", type);
-    return AMPERSAND_SERIALIZER.deserialize(rendered);
+    final String rendered =
+        renderTemplate(player, template, eventPlaceholders(player, type));
+    return this.components.deserialize(rendered, isCacheable(template));
   }
 
   private Component createVanillaJoinLeaveComponent(final Player player, final String type) {
@@ -566,42 +643,31 @@ public final class ChatFormatListener implements Listener {
     return Component.text(player.getName() + suffix, NamedTextColor.YELLOW);
   }
 
+  /**
+   * Sends a fake join or leave message to everyone who cannot see the vanished player.
+   * Recipients are picked once into a forwarding audience that shares one compacted component;
+   * Adventure still serializes it per recipient on the platform side.
+   * Vanish plugins fire their hide event before hiding and only answer canSee while the player
+   * is hidden, so leave recipients are picked on the next tick, unless the player has left by
+   * then.
+   */
   private void sendVanishMessageToRecipients(
-      final Player vanishedPlayer, final Component message) {
-    for (final Player viewer : this.plugin.getServer().getOnlinePlayers()) {
-      if (viewer.equals(vanishedPlayer)) {
-        continue;
-      }
-      viewer.sendMessage(message);
-    }
-  }
-
-  private boolean isVanishCanSeeAvailable() {
-    if (this.vanishCanSeeResolved) {
-      return this.vanishCanSeeMethod != null;
+      final Player vanishedPlayer, final String type, final Component message) {
+    final Component compacted = message.compact();
+    if ("leave".equals(type)) {
+      this.plugin.getServer().getScheduler().runTask(this.plugin, () -> {
+        if (vanishedPlayer.isOnline()) {
+          this.vanishVisibility
+              .recipients(vanishedPlayer, this.plugin.getServer().getOnlinePlayers())
+              .sendMessage(compacted);
+        }
+      });
+      return;
     }
-    this.vanishCanSeeResolved = true;
 
-    try {
-      final Class<?> vanishApi = Class.forName("de.myzelyam.api.vanish.VanishAPI");
-      this.vanishCanSeeMethod =
-          vanishApi.getMethod("canSee", Player.class, Player.class);
-    } catch (ReflectiveOperationException ex) {
-      this.vanishCanSeeMethod = null;
-    }
-    return this.vanishCanSeeMethod != null;
-  }
-
-  private boolean canSeeViaVanishApi(final Player viewer, final Player vanishedPlayer) {
-    if (!isVanishCanSeeAvailable()) {
-      return true;
-    }
-    try {
-      final Object result = this.vanishCanSeeMethod.invoke(null, viewer, vanishedPlayer);
-      return result instanceof Boolean && (Boolean) result;
-    } catch (ReflectiveOperationException ex) {
-      return true;
-    }
+    this.vanishVisibility
+        .recipients(vanishedPlayer, this.plugin.getServer().getOnlinePlayers())
+        .sendMessage(compacted);
   }
 
   private void disableSuperVanishFakeMessagesIfPossible() {
@@ -695,239 +761,202 @@ public final class ChatFormatListener implements Listener {
     return this.plugin.getServer().getPluginManager().isPluginEnabled(pluginName);
   }
 
+  /**
+   * Builds the chat renderer for one message. Nothing in the default placeholders depends on
+   * the viewer, so the final component is rendered once and shared by every viewer. Only
+   * PlaceholderAPI relational placeholders (%rel_...%) in chat.format force per-viewer work,
+   * and even then the player's message body is still rendered once.
+   */
+  private ChatRenderer createChatRenderer(
+      final Player player,
+      final String before,
+      final String after,
+      final String prefix,
+      final boolean cacheable) {
+    if (!usesRelationalPlaceholders(before) && !usesRelationalPlaceholders(after)) {
+      final Component beforeComponent = parseTemplateText(before, cacheable);
+      final Component afterComponent = parseTemplateText(after, cacheable);
+      return ChatRenderer.viewerUnaware((source, sourceDisplayName, message) -> beforeComponent
+          .append(buildPlayerMessage(player, message, prefix))
+          .append(afterComponent));
+    }
+
+    final ChatRenderer bodyRenderer = ChatRenderer.viewerUnaware(
+        (source, sourceDisplayName, message) -> buildPlayerMessage(player, message, prefix));
+    return (source, sourceDisplayName, message, viewer) -> {
+      final Component body = bodyRenderer.render(source, sourceDisplayName, message, viewer);
+      if (!(viewer instanceof Player viewerPlayer)) {
+        return parseTemplateText(before, cacheable)
+            .append(body)
+            .append(parseTemplateText(after, cacheable));
+      }
+      final String viewerBefore =
+          PlaceholderAPI.setRelationalPlaceholders(player, viewerPlayer, before);
+      final String viewerAfter =
+          PlaceholderAPI.setRelationalPlaceholders(player, viewerPlayer, after);
+      return parseTemplateText(viewerBefore, cacheable)
+          .append(body)
+          .append(parseTemplateText(viewerAfter, cacheable));
+    };
+  }
+
+  private boolean usesRelationalPlaceholders(final String templateText) {
+    return this.placeholderApiEnabled
+        && settings().placeholderApi()
+        && templateText.contains(RELATIONAL_PLACEHOLDER_MARKER);
+  }
+
   private Component buildPlayerMessage(
       final Player player, final Component originalMessage, final String prefix) {
     final String plainMessage = PLAIN_TEXT_SERIALIZER.serialize(originalMessage);
-    final FileConfiguration config = this.plugin.getConfig();
-    final String colorPermission = getConfigString(
-        config, "permissions.chat-color", "hudschatformatting.chat.color");
-    final String formatPermission = getConfigString(
-        config, "permissions.chat-format", "hudschatformatting.chat.format");
+    final int permissions = this.chatPermissions.get(player, settings());
+    final boolean canUseColors = (permissions & ChatPermissions.COLOR) != 0;
+    final boolean canUseFormats = (permissions & ChatPermissions.FORMAT) != 0;
 
-    final boolean opBypass = player.isOp();
-    final boolean canUseColors = opBypass || player.hasPermission(colorPermission);
-    final boolean canUseFormats = opBypass || player.hasPermission(formatPermission);
-
-    final Component baseMessage;
-    if (!canUseColors && !canUseFormats) {
-      baseMessage = Component.text(plainMessage);
-    } else {
-      final String translated = translateAmpersandCodes(plainMessage, canUseColors, canUseFormats);
-      baseMessage = SECTION_SERIALIZER.deserialize(translated);
-    }
+    final Component baseMessage = canUseColors || canUseFormats
+        ? LegacyTextParser.parse(plainMessage, canUseColors, canUseFormats)
+        : Component.text(plainMessage);
 
     return applyMessageTemplate(player, baseMessage, prefix);
   }
 
-  private String applyFormatPlaceholders(final Player player, final String prefix) {
-    String format = this.plugin.getConfig().getString("chat.format", DEFAULT_FORMAT);
-    if (format == null || format.isBlank()) {
-      format = DEFAULT_FORMAT;
+  private Component parseTemplateText(final String templateText, final boolean cacheable) {
+    if (!settings().legacyCodesInFormat()) {
+      return Component.text(templateText);
     }
-    return applyGeneralPlaceholders(player, format, prefix);
+    return this.components.deserialize(templateText, cacheable);
   }
 
-  private Component parseTemplateText(final String templateText) {
-    final boolean parseLegacyColors =
-        this.plugin.getConfig().getBoolean("chat.enable-legacy-codes-in-format", true);
-    if (!parseLegacyColors) {
-      return Component.text(templateText);
-    }
-    return AMPERSAND_SERIALIZER.deserialize(templateText);
+  /**
+   * Returns false for templates showing {time}, whose rendered text changes every second and
+   * would only churn the component cache.
+   */
+  private static boolean isCacheable(final ChatTemplate template) {
+    return !template.uses(TemplatePlaceholder.TIME);
+  }
+
+  private static boolean isCacheable(final ChatTemplate.Split template) {
+    return !template.uses(TemplatePlaceholder.TIME);
   }
 
   private Component applyMessageTemplate(
       final Player player, final Component playerMessage, final String prefix) {
-    final FileConfiguration config = this.plugin.getConfig();
-    final String template = getConfigString(config, "chat.message-format", "{message}");
-    int messagePosition = template.indexOf(MESSAGE_PLACEHOLDER);
-    String output = template;
-    if (messagePosition < 0) {
-      output = template + " " + MESSAGE_PLACEHOLDER;
-      messagePosition = output.indexOf(MESSAGE_PLACEHOLDER);
-    }
-
-    final String beforeRaw = output.substring(0, messagePosition);
-    final String afterRaw = output.substring(messagePosition + MESSAGE_PLACEHOLDER.length());
-    final String before = applyGeneralPlaceholders(player, beforeRaw, prefix);
-    final String after = applyGeneralPlaceholders(player, afterRaw, prefix);
-
-    final boolean parseLegacy =
-        config.getBoolean("chat.enable-legacy-codes-in-message-format", true);
-    if (!parseLegacy) {
+    final ChatSettings settings = settings();
+    final ChatTemplate.Split template = settings.messageFormat();
+    final GeneralPlaceholders placeholders = new GeneralPlaceholders(player, prefix);
+    final String before = renderTemplate(player, template.before(), placeholders);
+    final String after = renderTemplate(player, template.after(), placeholders);
+
+    if (!settings.legacyCodesInMessageFormat()) {
       return Component.text(before).append(playerMessage).append(Component.text(after));
     }
 
-    return AMPERSAND_SERIALIZER.deserialize(before)
+    final boolean cacheable = isCacheable(template);
+    return this.components.deserialize(before, cacheable)
         .append(playerMessage)
-        .append(AMPERSAND_SERIALIZER.deserialize(after));
-  }
-
-  private String getCurrentTime() {
-    final FileConfiguration config = this.plugin.getConfig();
-    final String pattern = config.getString("chat.time-pattern", "HH:mm:ss");
-    final String configuredZone = config.getString("chat.time-zone", "server");
-
-    ZoneId zone = ZoneId.systemDefault();
-    if (configuredZone != null && !configuredZone.equalsIgnoreCase("server")) {
-      try {
-        zone = ZoneId.of(configuredZone);
-      } catch (DateTimeException ex) {
-        this.plugin.getLogger().warning(
-            "Invalid chat.time-zone in config, using server time zone.");
-      }
-    }
-
-    DateTimeFormatter formatter;
-    try {
-      formatter = DateTimeFormatter.ofPattern(pattern, Locale.ENGLISH);
-    } catch (IllegalArgumentException ex) {
-      this.plugin.getLogger().warning("Invalid chat.time-pattern in config, using HH:mm:ss.");
-      formatter = DateTimeFormatter.ofPattern("HH:mm:ss", Locale.ENGLISH);
-    }
-
-    return LocalDateTime.now(zone).format(formatter);
-  }
-
-  private String getWorldTime24(final Player player) {
-    final long ticks = player.getWorld().getTime();
-    final long totalMinutes = ((ticks + 6000L) % 24000L) * 60L / 1000L;
-    final long hours = totalMinutes / 60L;
-    final long minutes = totalMinutes % 60L;
-    return String.format(Locale.ENGLISH, "%02d:%02d", hours, minutes);
-  }
-
-  private String getWorldTime12(final Player player) {
-    final String worldTime24 = getWorldTime24(player);
-    final String[] parts = worldTime24.split(":");
-    final int hour24 = Integer.parseInt(parts[0]);
-    final int minute = Integer.parseInt(parts[1]);
-    final int hour12 = hour24 % 12 == 0 ? 12 : hour24 % 12;
-    final String suffix = hour24 < 12 ? "AM" : "PM";
-    return String.format(Locale.ENGLISH, "%d:%02d %s", hour12, minute, suffix);
-  }
-
-  private String getVaultBalance(final Player player) {
-    if (this.economy == null) {
-      return BALANCE_UNAVAILABLE;
-    }
-    return String.format(Locale.ENGLISH, "%.2f", this.economy.getBalance(player));
+        .append(this.components.deserialize(after, cacheable));
   }
 
-  private String getVaultBalanceFormatted(final Player player) {
-    if (this.economy == null) {
-      return BALANCE_UNAVAILABLE;
-    }
-    return this.economy.format(this.economy.getBalance(player));
+  private BalanceCache.Balance getVaultBalance(final Player player) {
+    final ChatSettings settings = settings();
+    return this.balanceCache.get(
+        player, settings.balanceCacheMillis(), settings.balanceWaitMillis());
   }
 
+  /**
+   * Returns the player's prefix, already passed through {@link #normalizeLegacyCodes(String)}.
+   */
   private String getResolvedPrefix(final Player player) {
-    final String luckPermsPrefix = getLuckPermsPrefix(player);
-    if (!luckPermsPrefix.isBlank()) {
-      return luckPermsPrefix;
-    }
-    return getVaultPrefix(player);
+    return this.prefixCache.get(player.getUniqueId(), playerId -> {
+      final String luckPermsPrefix = getLuckPermsPrefix(player);
+      if (!luckPermsPrefix.isBlank()) {
+        return new PlayerCache.Loaded<>(
+            normalizeLegacyCodes(luckPermsPrefix), LUCKPERMS_TTL_MS);
+      }
+      return new PlayerCache.Loaded<>(
+          normalizeLegacyCodes(getVaultPrefix(player)), VAULT_PREFIX_TTL_MS);
+    });
   }
 
-  private String getJoinOrLeaveTemplate(
-      final Player player, final String type, final String fallback) {
-    final FileConfiguration config = this.plugin.getConfig();
-    final String playerPath = "messages." + type + ".per-player." + player.getName();
-    final String playerSpecific = config.getString(playerPath);
-    if (playerSpecific != null && !playerSpecific.isBlank()) {
+  private ChatTemplate getJoinOrLeaveTemplate(final Player player, final String type) {
+    final ChatSettings.MessageSettings messages = settings().messages(type);
+    final ChatTemplate playerSpecific = messages.playerTemplate(player.getName());
+    if (playerSpecific != null) {
       return playerSpecific;
     }
 
-    final String uuidPath = "messages." + type + ".per-player-uuid." + player.getUniqueId();
-    final String uuidSpecific = config.getString(uuidPath);
-    if (uuidSpecific != null && !uuidSpecific.isBlank()) {
+    final ChatTemplate uuidSpecific = messages.uuidTemplate(player.getUniqueId());
+    if (uuidSpecific != null) {
       return uuidSpecific;
     }
 
-    return getConfiguredMessageFormat(config, "messages." + type, fallback);
+    return messages.format();
   }
 
-  private String getDeathTemplate(final DeathContext deathContext) {
-    final FileConfiguration config = this.plugin.getConfig();
-    if (!deathContext.killerTypeKey().isBlank()) {
-      final String mobPath = "messages.death.by-mob." + deathContext.killerTypeKey();
-      final String mobTemplate = config.getString(mobPath);
-      if (mobTemplate != null && !mobTemplate.isBlank()) {
-        return mobTemplate;
-      }
+  private ChatTemplate getDeathTemplate(final DeathContext deathContext) {
+    final ChatSettings.MessageSettings messages = settings().death();
+    final ChatTemplate mobTemplate = messages.mobTemplate(deathContext.killerType());
+    if (mobTemplate != null) {
+      return mobTemplate;
     }
 
-    final String exactPath = "messages.death.by-cause." + deathContext.causeKey();
-    final String exactTemplate = config.getString(exactPath);
-    if (exactTemplate != null && !exactTemplate.isBlank()) {
+    final ChatTemplate exactTemplate = messages.causeTemplate(deathContext.cause());
+    if (exactTemplate != null) {
       return exactTemplate;
     }
 
-    return getConfiguredMessageFormat(config, "messages.death", DEFAULT_DEATH_MESSAGE);
+    return messages.format();
   }
 
-  private String getAdvancementTemplate(final String advancementKey) {
-    final FileConfiguration config = this.plugin.getConfig();
-    final String exactPath = "messages.advancement.by-key." + advancementKey;
-    final String exactTemplate = config.getString(exactPath);
-    if (exactTemplate != null && !exactTemplate.isBlank()) {
+  private ChatTemplate getAdvancementTemplate(final NamespacedKey advancementKey) {
+    final ChatSettings.MessageSettings messages = settings().advancement();
+    final ChatTemplate exactTemplate = messages.keyTemplate(advancementKey);
+    if (exactTemplate != null) {
       return exactTemplate;
     }
 
-    return getConfiguredMessageFormat(
-        config, "messages.advancement", DEFAULT_ADVANCEMENT_MESSAGE);
+    return messages.format();
   }
 
-  private String getConfiguredMessageFormat(
-      final FileConfiguration config, final String basePath, final String fallback) {
-    final String legacyDefault = config.getString(basePath + ".default");
-    if (legacyDefault != null && !legacyDefault.isBlank()) {
-      return legacyDefault;
-    }
-
-    final String format = config.getString(basePath + ".format");
-    if (format != null && !format.isBlank()) {
-      return format;
+  private String getDefaultDeathMessage(
+      final Component baseDeathMessage, final Player player, final DeathContext deathContext) {
+    if (baseDeathMessage == null) {
+      return player.getName() + " died.";
     }
-    return fallback;
-  }
 
-  private String getDeathCauseKey(final Player player) {
-    final EntityDamageEvent causeEvent = player.getLastDamageCause();
-    if (causeEvent == null || causeEvent.getCause() == null) {
-      return "UNKNOWN";
-    }
-    return causeEvent.getCause().name();
+    return this.nameRewriter.rewrite(
+        PLAIN_TEXT_SERIALIZER.serialize(baseDeathMessage),
+        deathNameReplacements(player, deathContext));
   }
 
   private DeathContext getDeathContext(final Player player) {
-    final String causeKey = getDeathCauseKey(player);
     final EntityDamageEvent causeEvent = player.getLastDamageCause();
+    final DamageCause cause = causeEvent == null ? null : causeEvent.getCause();
     if (!(causeEvent instanceof EntityDamageByEntityEvent entityDamage)) {
-      return new DeathContext(causeKey, "", "", "", "");
+      return new DeathContext(cause, null, "", "", "");
     }
 
     final org.bukkit.entity.Entity killer = resolveDamager(entityDamage.getDamager());
     if (killer == null) {
-      return new DeathContext(causeKey, "", "", "", "");
+      return new DeathContext(cause, null, "", "", "");
     }
 
     if (killer instanceof Player killerPlayer) {
       final String decoratedKiller = getVanillaFormattedName(killerPlayer);
       return new DeathContext(
-          causeKey,
-          "PLAYER",
+          cause,
+          EntityType.PLAYER,
           decoratedKiller,
           killerPlayer.getName(),
           decoratedKiller);
     }
 
-    final String killerType = killer.getType().name();
+    final EntityType killerType = killer.getType();
     final Component customName = killer.customName();
     final String killerName = customName == null
-        ? killerType
+        ? killerType.name()
         : PLAIN_TEXT_SERIALIZER.serialize(customName);
-    return new DeathContext(causeKey, killerType, killerName, "", "");
+    return new DeathContext(cause, killerType, killerName, "", "");
   }
 
   private org.bukkit.entity.Entity resolveDamager(final org.bukkit.entity.Entity damager) {
@@ -992,85 +1021,34 @@ public final class ChatFormatListener implements Listener {
     return prefix == null ? "" : prefix;
   }
 
-  private String translateAmpersandCodes(
-      final String message, final boolean allowColors, final boolean allowFormats) {
-    final StringBuilder output = new StringBuilder(message.length());
-    for (int i = 0; i < message.length(); i++) {
-      final char current = message.charAt(i);
-      if (current != '&' || i + 1 >= message.length()) {
-        output.append(current);
-        continue;
-      }
-
-      final char code = Character.toLowerCase(message.charAt(i + 1));
-      if (isAllowedCode(code, allowColors, allowFormats)) {
-        output.append(SECTION_SIGN).append(code);
-        i++;
-        continue;
-      }
-
-      output.append(current);
-    }
-
-    return output.toString();
+  /**
+   * Renders a template for a player. General placeholders go through PlaceholderAPI when it is
+   * enabled; event values such as the chat message or vanilla text are inserted verbatim.
+   */
+  private String renderTemplate(
+      final Player player,
+      final ChatTemplate template,
+      final ChatTemplate.PlaceholderResolver placeholders) {
+    final UnaryOperator<String> expander = this.placeholderApiEnabled && settings().placeholderApi()
+        ? text -> PlaceholderAPI.setPlaceholders(player, text)
+        : null;
+    return template.render(placeholders, expander);
   }
 
-  private boolean isAllowedCode(
-      final char code, final boolean allowColors, final boolean allowFormats) {
-    final String colorCodes = "0123456789abcdefx";
-    final String formatCodes = "klmno";
-
-    if (allowColors && colorCodes.indexOf(code) >= 0) {
-      return true;
-    }
-    if (allowFormats && formatCodes.indexOf(code) >= 0) {
-      return true;
+  private String getPlayerPlaceholder(final Player player, final String nickname) {
+    final String resolvedPlayerName = getResolvedPlayerPlaceholder(player);
+    if (resolvedPlayerName.equals(player.getName()) && !nickname.isBlank()) {
+      return nickname;
     }
+    return normalizeLegacyCodes(resolvedPlayerName);
+  }
 
-    return code == 'r' && (allowColors || allowFormats);
-  }
-
-  private String applyGeneralPlaceholders(
-      final Player player, final String input, final String prefix) {
-    String resolvedPlayerName = getResolvedPlayerPlaceholder(player);
-    final String displayName = getResolvedNickname(player);
-    if (resolvedPlayerName.equals(player.getName()) && !displayName.isBlank()) {
-      resolvedPlayerName = displayName;
-    }
-    resolvedPlayerName = normalizeLegacyCodes(resolvedPlayerName);
-    final String onlinePlayers = Integer.toString(
-        this.plugin.getServer().getOnlinePlayers().size());
-    final String maxPlayers = Integer.toString(this.plugin.getServer().getMaxPlayers());
-    final String formattedWorldName = getConfiguredWorldName(player);
-    final String normalizedPrefix = normalizeLegacyCodes(prefix);
-    String output = input
-        .replace("{prefix}", normalizedPrefix)
-        .replace("{player}", resolvedPlayerName)
-        .replace("{real_player}", player.getName())
-        .replace("{display_name}", displayName)
-        .replace("{world}", formattedWorldName)
-        .replace("{world_alias}", getMultiverseWorldAlias(player))
-        .replace("{x}", Integer.toString(player.getLocation().getBlockX()))
-        .replace("{y}", Integer.toString(player.getLocation().getBlockY()))
-        .replace("{z}", Integer.toString(player.getLocation().getBlockZ()))
-        .replace("{time}", getCurrentTime())
-        .replace("{world_time_24}", getWorldTime24(player))
-        .replace("{world_time_12}", getWorldTime12(player))
-        .replace("{online_players}", onlinePlayers)
-        .replace("{max_players}", maxPlayers)
-        .replace("{balance}", getVaultBalance(player))
-        .replace("{balance_formatted}", getVaultBalanceFormatted(player));
-
-    if (this.placeholderApiEnabled
-        && this.plugin.getConfig().getBoolean("chat.enable-placeholderapi", true)) {
-      output = PlaceholderAPI.setPlaceholders(player, output);
-    }
-    return output;
-  }
-
-  private boolean isMessageEnabled(final String path, final boolean fallback) {
-    final FileConfiguration config = this.plugin.getConfig();
-    return config.getBoolean(path, fallback);
+  private ChatTemplate.PlaceholderResolver eventPlaceholders(
+      final Player player, final String type) {
+    final GeneralPlaceholders placeholders = new GeneralPlaceholders(player, "");
+    return placeholder -> placeholder == TemplatePlaceholder.EVENT
+        ? type
+        : placeholders.resolve(placeholder);
   }
 
   private boolean shouldSuppressPlayerMessage(final String type, final Player player) {
@@ -1083,110 +1061,131 @@ public final class ChatFormatListener implements Listener {
       return true;
     }
 
-    final FileConfiguration config = this.plugin.getConfig();
-    final List<String> disabledNames = config.getStringList(
-        "messages." + type + ".disabled-players");
-    if (containsIgnoreCase(disabledNames, player.getName())) {
-      return true;
-    }
-
-    final List<String> disabledUuids = config.getStringList(
-        "messages." + type + ".disabled-player-uuids");
-    final String uuid = player.getUniqueId().toString();
-    return containsIgnoreCase(disabledUuids, uuid);
+    return settings().messages(type).isDisabledFor(
+        player.getName(), player.getUniqueId());
   }
 
   private void trackRecentJoin(final Player player) {
     markRecent(recentJoins, player.getName());
-    recentLeaves.remove(player.getName().toLowerCase(Locale.ENGLISH));
+    recentLeaves.remove(player.getName());
   }
 
   private void trackRecentLeave(final Player player) {
     markRecent(recentLeaves, player.getName());
-    recentJoins.remove(player.getName().toLowerCase(Locale.ENGLISH));
+    recentJoins.remove(player.getName());
   }
 
-  private void markRecent(final Map<String, Long> map, final String name) {
+  private void markRecent(final RecentNames names, final String name) {
     if (name == null || name.isBlank()) {
       return;
     }
-    pruneOldEntries(map);
-    map.put(name.toLowerCase(Locale.ENGLISH), System.currentTimeMillis());
+    names.add(name);
   }
 
-  private void startVanishStatePolling() {
-    if (this.vanishPollTaskId != -1) {
-      return;
+  /**
+   * Returns true if a vanish plugin without events could hide the player, so the residual
+   * vanish poll has to probe them.
+   */
+  private boolean mayVanishWithoutEvents(final Player player) {
+    final ChatSettings settings = settings();
+    if (!settings.hideVanishedMessages()) {
+      return false;
     }
-    this.vanishPollTaskId = this.plugin.getServer().getScheduler().scheduleSyncRepeatingTask(
-        this.plugin,
-        this::pollVanishStates,
-        40L,
-        20L);
-  }
-
-  private void pollVanishStates() {
-    final boolean debug = isVanishDebugEnabled();
-    for (final Player player : this.plugin.getServer().getOnlinePlayers()) {
-      final boolean vanished = isPlayerVanished(player);
-      final UUID uuid = player.getUniqueId();
-      final Boolean previous = this.vanishStates.get(uuid);
-      this.vanishStates.put(uuid, vanished);
-      if (previous == null || previous == vanished) {
-        if (debug && previous != null) {
-          this.plugin.getLogger().info(
-              "[VanishDebug] " + player.getName() + " unchanged vanished=" + vanished);
-        }
-        continue;
-      }
-      if (debug) {
-        this.plugin.getLogger().info(
-            "[VanishDebug] " + player.getName() + " changed vanished=" + previous
-                + " -> " + vanished);
-      }
-      final String type = vanished ? "leave" : "join";
-      sendVanishJoinLeaveMessage(player, type);
+    final List<String> permissions = settings.vanishPollPermissions();
+    if (permissions.isEmpty()) {
+      return true;
     }
-
-    if (!this.vanishStates.isEmpty()) {
-      this.vanishStates.keySet().removeIf(
-          uuid -> this.plugin.getServer().getPlayer(uuid) == null);
+    for (final String permission : permissions) {
+      if (player.hasPermission(permission)) {
+        return true;
+      }
     }
+    return false;
   }
 
-  private void updateVanishState(final Player player, final boolean vanished) {
-    if (player == null) {
-      return;
+  private boolean isRecentBroadcast(final VanillaBroadcast broadcast) {
+    final String name = broadcast.playerName();
+    if ("join".equals(broadcast.type())) {
+      return recentJoins.contains(name);
+    }
+    if ("leave".equals(broadcast.type())) {
+      return recentLeaves.contains(name);
     }
-    this.vanishStates.put(player.getUniqueId(), vanished);
+    return false;
   }
 
-  private void clearVanishState(final Player player) {
-    if (player == null) {
-      return;
+  /**
+   * Recognizes a vanilla join or leave broadcast. Translatable join and leave messages are
+   * recognized in any locale by their key, with the player name read from the first argument.
+   * English text is matched by suffix as a fallback, and only serialized once the last text in
+   * the component ends like the suffixes do.
+   */
+  private VanillaBroadcast recognizeVanillaJoinLeave(final Component message) {
+    if (message == null) {
+      return null;
+    }
+    final VanillaBroadcast translated = findTranslatedJoinLeave(message, 0);
+    if (translated != null) {
+      return translated;
+    }
+    if (lastTextChar(message) != VANILLA_SUFFIX_LAST_CHAR) {
+      return null;
+    }
+    final String plainText = PLAIN_TEXT_SERIALIZER.serialize(message);
+    if (plainText.length() < VANILLA_SUFFIX_MIN_LENGTH) {
+      return null;
     }
-    this.vanishStates.remove(player.getUniqueId());
+    return parseVanillaJoinLeave(plainText);
   }
 
-  private boolean isRecentBroadcast(final VanillaBroadcast broadcast) {
-    pruneOldEntries(recentJoins);
-    pruneOldEntries(recentLeaves);
-    final String key = broadcast.playerName().toLowerCase(Locale.ENGLISH);
-    if ("join".equals(broadcast.type())) {
-      return recentJoins.containsKey(key);
+  private VanillaBroadcast findTranslatedJoinLeave(final Component component, final int depth) {
+    if (component instanceof TranslatableComponent translatable) {
+      final String type = VANILLA_JOIN_LEAVE_KEYS.get(translatable.key());
+      if (type != null && !translatable.arguments().isEmpty()) {
+        final String name = PLAIN_TEXT_SERIALIZER
+            .serialize(translatable.arguments().get(0).asComponent())
+            .trim();
+        return name.isEmpty() ? null : new VanillaBroadcast(type, name);
+      }
     }
-    if ("leave".equals(broadcast.type())) {
-      return recentLeaves.containsKey(key);
+    if (depth >= TRANSLATION_SEARCH_DEPTH) {
+      return null;
     }
-    return false;
+    for (final Component child : component.children()) {
+      final VanillaBroadcast found = findTranslatedJoinLeave(child, depth + 1);
+      if (found != null) {
+        return found;
+      }
+    }
+    return null;
   }
 
-  private void pruneOldEntries(final Map<String, Long> map) {
-    if (map.isEmpty()) {
-      return;
+  /**
+   * Returns the last non-whitespace character of the component's text, or 0 if its last
+   * non-blank part is not plain text.
+   */
+  private static char lastTextChar(final Component component) {
+    final List<Component> children = component.children();
+    for (int index = children.size() - 1; index >= 0; index--) {
+      final Component child = children.get(index);
+      final char last = lastTextChar(child);
+      if (last != 0) {
+        return last;
+      }
+      if (!(child instanceof TextComponent text) || !text.content().isBlank()) {
+        return 0;
+      }
+    }
+    if (!(component instanceof TextComponent text)) {
+      return 0;
     }
-    final long cutoff = System.currentTimeMillis() - RECENT_EVENT_WINDOW_MS;
-    map.entrySet().removeIf(entry -> entry.getValue() < cutoff);
+    final String content = text.content();
+    for (int index = content.length() - 1; index >= 0; index--) {
+      if (!Character.isWhitespace(content.charAt(index))) {
+        return content.charAt(index);
+      }
+    }
+    return 0;
   }
 
   private VanillaBroadcast parseVanillaJoinLeave(final String message) {
@@ -1215,30 +1214,13 @@ public final class ChatFormatListener implements Listener {
     if (name == null || name.isBlank()) {
       return null;
     }
-    final Player exact = this.plugin.getServer().getPlayerExact(name);
-    if (exact != null) {
-      return exact;
-    }
-    final String candidate = name.trim();
-    for (final Player player : this.plugin.getServer().getOnlinePlayers()) {
-      if (player.getName().equalsIgnoreCase(candidate)) {
-        return player;
-      }
-    }
-    for (final Player player : this.plugin.getServer().getOnlinePlayers()) {
-      if (containsIgnoreCase(candidate, player.getName())) {
-        return player;
-      }
-      final String displayName = PLAIN_TEXT_SERIALIZER.serialize(player.displayName());
-      if (!displayName.isBlank() && containsIgnoreCase(candidate, displayName)) {
-        return player;
-      }
-    }
-    return null;
+    final PlayerNameIndex names = this.plugin.getPlayerNames();
+    final Player exact = names.get(name);
+    return exact != null ? exact : names.findIn(name.trim());
   }
 
   private boolean isPlayerVanished(final Player player) {
-    if (!this.plugin.getConfig().getBoolean("integrations.vanish.hide-messages", true)) {
+    if (!settings().hideVanishedMessages()) {
       return false;
     }
 
@@ -1251,13 +1233,7 @@ public final class ChatFormatListener implements Listener {
       return true;
     }
 
-    final List<String> metadataKeys = this.plugin.getConfig().getStringList(
-        "integrations.vanish.metadata-keys");
-    for (final String key : metadataKeys) {
-      if (key == null || key.isBlank()) {
-        continue;
-      }
-
+    for (final String key : settings().vanishMetadataKeys()) {
       if (!player.hasMetadata(key)) {
         continue;
       }
@@ -1274,7 +1250,7 @@ public final class ChatFormatListener implements Listener {
   }
 
   private boolean isVanishDebugEnabled() {
-    return this.plugin.getConfig().getBoolean("integrations.vanish.debug", false);
+    return settings().vanishDebug();
   }
 
   private void logVanishDebug(final Player player, final String source, final boolean vanished) {
@@ -1286,145 +1262,38 @@ public final class ChatFormatListener implements Listener {
   }
 
   private boolean isVanishedViaSuperVanishApi(final Player player) {
-    final boolean superVanish = this.plugin.getServer().getPluginManager()
-        .isPluginEnabled("SuperVanish");
-    final boolean premiumVanish = this.plugin.getServer().getPluginManager()
-        .isPluginEnabled("PremiumVanish");
-    if (!superVanish && !premiumVanish) {
-      return false;
-    }
-
-    try {
-      final Class<?> vanishApi = Class.forName("de.myzelyam.api.vanish.VanishAPI");
-      final java.lang.reflect.Method method = vanishApi.getMethod("isInvisible", Player.class);
-      final Object result = method.invoke(null, player);
-      return result instanceof Boolean && (Boolean) result;
-    } catch (ReflectiveOperationException ex) {
-      return false;
-    }
+    return this.integrations.isVanishedViaVanishApi(player);
   }
 
   private boolean isVanishedViaEssentials(final Player player) {
-    if (!this.plugin.getServer().getPluginManager().isPluginEnabled("Essentials")) {
-      return false;
-    }
-
-    final org.bukkit.plugin.Plugin essentials = this.plugin.getServer().getPluginManager()
-        .getPlugin("Essentials");
-    if (essentials == null) {
-      return false;
-    }
-
-    try {
-      Object user = null;
-      try {
-        final java.lang.reflect.Method getUserByUuid = essentials.getClass()
-            .getMethod("getUser", UUID.class);
-        user = getUserByUuid.invoke(essentials, player.getUniqueId());
-      } catch (ReflectiveOperationException ignored) {
-        final java.lang.reflect.Method getUserByName = essentials.getClass()
-            .getMethod("getUser", String.class);
-        user = getUserByName.invoke(essentials, player.getName());
-      }
-
-      if (user == null) {
-        return false;
-      }
-
-      final java.lang.reflect.Method isVanished = user.getClass().getMethod("isVanished");
-      final Object result = isVanished.invoke(user);
-      return result instanceof Boolean && (Boolean) result;
-    } catch (ReflectiveOperationException ex) {
-      return false;
-    }
-  }
-
-  private boolean containsIgnoreCase(final String haystack, final String needle) {
-    if (haystack == null || needle == null) {
-      return false;
-    }
-    return haystack.toLowerCase(Locale.ENGLISH).contains(needle.toLowerCase(Locale.ENGLISH));
-  }
-
-  private boolean containsIgnoreCase(final List<String> list, final String value) {
-    for (final String entry : list) {
-      if (entry != null && entry.equalsIgnoreCase(value)) {
-        return true;
-      }
-    }
-    return false;
+    return this.integrations.isVanishedViaEssentials(player);
   }
 
   private String getResolvedPlayerPlaceholder(final Player player) {
-    if (!this.plugin.getConfig().getBoolean(
-        "integrations.libsdisguises.use-disguise-name-for-player-placeholder", true)) {
+    if (!settings().disguiseNameForPlayer()) {
       return player.getName();
     }
 
-    if (!this.plugin.getServer().getPluginManager().isPluginEnabled("LibsDisguises")) {
-      return player.getName();
-    }
-
-    try {
-      final Class<?> api = Class.forName("me.libraryaddict.disguise.DisguiseAPI");
-      final java.lang.reflect.Method getDisguise = api.getMethod(
-          "getDisguise", org.bukkit.entity.Entity.class);
-      final Object disguise = getDisguise.invoke(null, player);
-      if (disguise == null) {
-        return player.getName();
-      }
-
-      final String disguiseName = invokeStringMethod(disguise, "getDisguiseName");
-      if (disguiseName != null && !disguiseName.isBlank()) {
-        return disguiseName;
-      }
-
-      final String altName = invokeStringMethod(disguise, "getName");
-      if (altName != null && !altName.isBlank()) {
-        return altName;
-      }
-    } catch (ReflectiveOperationException ex) {
-      return player.getName();
-    }
-
-    return player.getName();
-  }
-
-  private String invokeStringMethod(final Object target, final String methodName) {
-    try {
-      final java.lang.reflect.Method method = target.getClass().getMethod(methodName);
-      final Object value = method.invoke(target);
-      if (value instanceof String) {
-        return (String) value;
-      }
-    } catch (ReflectiveOperationException ex) {
-      return null;
-    }
-    return null;
+    final String disguiseName = this.integrations.disguiseName(player);
+    return disguiseName == null ? player.getName() : disguiseName;
   }
 
-  private boolean isVanillaTemplate(final String template) {
-    return template != null && template.trim().equalsIgnoreCase(VANILLA_TEMPLATE_TOKEN);
-  }
-
-  private boolean usePrefixedNicknamesInVanillaMessages() {
-    return this.plugin.getConfig().getBoolean(
-        "messages.use-prefixed-nicknames-in-vanilla", true);
-  }
-
-  private boolean includePrefixInVanillaFormattedNames() {
-    return this.plugin.getConfig().getBoolean(
-        "messages.include-prefix-in-vanilla-names", true);
+  /**
+   * Returns the player's nickname, already passed through {@link #normalizeLegacyCodes(String)}.
+   * Nicknames have no reliable change event, so they are cached for a short TTL.
+   */
+  private String getResolvedNickname(final Player player) {
+    return this.nicknameCache.get(player.getUniqueId(), playerId -> new PlayerCache.Loaded<>(
+        normalizeLegacyCodes(loadNickname(player)), NICKNAME_TTL_MS));
   }
 
-  private String getResolvedNickname(final Player player) {
+  private String loadNickname(final Player player) {
     final String placeholderNickname = getNicknameFromPlaceholderApi(player);
     if (!placeholderNickname.isBlank()) {
       return placeholderNickname;
     }
 
-    final String displayName = normalizeLegacyCodes(
-        AMPERSAND_SERIALIZER.serialize(player.displayName()));
+    final String displayName = ComponentCache.AMPERSAND_SERIALIZER.serialize(player.displayName());
     if (!displayName.isBlank()) {
       return displayName;
     }
@@ -1432,31 +1301,17 @@ public final class ChatFormatListener implements Listener {
   }
 
   private String getNicknameFromPlaceholderApi(final Player player) {
-    if (!this.placeholderApiEnabled
-        || !this.plugin.getConfig().getBoolean("chat.enable-placeholderapi", true)) {
+    if (this.nicknamePlaceholders == null || !settings().placeholderApi()) {
       return "";
     }
-
-    for (final String placeholder : NICKNAME_PLACEHOLDER_CANDIDATES) {
-      final String resolved = PlaceholderAPI.setPlaceholders(player, placeholder);
-      if (resolved == null) {
-        continue;
-      }
-
-      final String trimmed = resolved.trim();
-      if (!trimmed.isBlank() && !trimmed.equals(placeholder)) {
-        return normalizeLegacyCodes(trimmed);
-      }
-    }
-    return "";
+    return this.nicknamePlaceholders.resolve(player);
   }
 
   private String getVanillaFormattedName(final Player player) {
-    final String prefix = includePrefixInVanillaFormattedNames()
-        ? normalizeLegacyCodes(getResolvedPrefix(player))
+    final String prefix = settings().prefixInVanillaNames()
+        ? getResolvedPrefix(player)
         : "";
-    final String nickname = normalizeLegacyCodes(getResolvedNickname(player));
-    return prefix + nickname;
+    return prefix + getResolvedNickname(player);
   }
 
   private Component rewriteVanillaDeathMessage(
@@ -1464,211 +1319,94 @@ public final class ChatFormatListener implements Listener {
     if (originalMessage == null) {
       return null;
     }
+    return rewriteVanillaMessage(originalMessage, deathNameReplacements(victim, deathContext));
+  }
 
+  private Map<String, String> deathNameReplacements(
+      final Player victim, final DeathContext deathContext) {
     final Map<String, String> replacements = new LinkedHashMap<>();
     replacements.put(victim.getName(), getVanillaFormattedName(victim));
     if (!deathContext.killerPlayerName().isBlank()
         && !deathContext.killerDecoratedName().isBlank()) {
       replacements.put(deathContext.killerPlayerName(), deathContext.killerDecoratedName());
     }
-    return rewriteVanillaMessage(originalMessage, replacements);
+    return replacements;
   }
 
   private Component rewriteVanillaMessage(
       final Component originalMessage, final Map<String, String> replacements) {
-    if (originalMessage == null || replacements.isEmpty()) {
-      return originalMessage;
-    }
-
-    Component rewritten = originalMessage;
-    for (final Map.Entry<String, String> replacement : replacements.entrySet()) {
-      final String rawName = replacement.getKey();
-      final String replacementName = replacement.getValue();
-      if (rawName == null
-          || rawName.isBlank()
-          || replacementName == null
-          || replacementName.isBlank()) {
-        continue;
-      }
-
-      rewritten = rewritten.replaceText(builder -> builder
-          .matchLiteral(rawName)
-          .replacement(AMPERSAND_SERIALIZER.deserialize(replacementName)));
-    }
-    return rewritten;
-  }
-
-  private String rewritePlainName(
-      final String input, final String rawName, final String replacementName) {
-    if (input == null
-        || input.isBlank()
-        || rawName == null
-        || rawName.isBlank()
-        || replacementName == null
-        || replacementName.isBlank()) {
-      return input;
-    }
-    return input.replace(rawName, replacementName);
+    return this.nameRewriter.rewrite(originalMessage, replacements);
   }
 
   private String normalizeLegacyCodes(final String input) {
-    if (input == null || input.isBlank()) {
-      return "";
-    }
-
-    final String sectionAsAmpersand = input.replace(SECTION_SIGN, '&');
-    final Matcher matcher = HEX_AMPERSAND_PATTERN.matcher(sectionAsAmpersand);
-    final StringBuffer converted = new StringBuffer(sectionAsAmpersand.length());
-    while (matcher.find()) {
-      final String hex = matcher.group(1);
-      final String replacement = "&x&"
-          + hex.charAt(0)
-          + "&"
-          + hex.charAt(1)
-          + "&"
-          + hex.charAt(2)
-          + "&"
-          + hex.charAt(3)
-          + "&"
-          + hex.charAt(4)
-          + "&"
-          + hex.charAt(5);
-      matcher.appendReplacement(converted, Matcher.quoteReplacement(replacement));
-    }
-    matcher.appendTail(converted);
-    return converted.toString();
-  }
-
-  private FilterResult applyChatFilter(final Player player, final String plainMessage) {
-    final FileConfiguration config = this.plugin.getConfig();
-    if (!config.getBoolean("chat.filter.enabled", true)) {
-      return new FilterResult(false, plainMessage);
-    }
-
-    final String bypassPermission = getConfigString(
-        config, "permissions.chat-filter-bypass", "hudschatformatting.chat.filter.bypass");
-    if (player.isOp() || player.hasPermission(bypassPermission)) {
-      return new FilterResult(false, plainMessage);
-    }
-
-    final boolean caseSensitive = config.getBoolean("chat.filter.case-sensitive", false);
-    final boolean wholeWordOnly = config.getBoolean("chat.filter.whole-word-only", false);
-    final boolean applyReplacementsFirst = config.getBoolean(
-        "chat.filter.apply-replacements-before-block-check", true);
-    final List<String> blockedKeywords = config.getStringList("chat.filter.blocked-keywords");
-    final Map<String, Object> replacements = getReplacementRules(config);
-
-    if (!applyReplacementsFirst && containsBlockedKeyword(
-        plainMessage, blockedKeywords, caseSensitive, wholeWordOnly)) {
-      return new FilterResult(true, plainMessage);
-    }
-
-    final String replaced = applyReplacementRules(
-        plainMessage, replacements, caseSensitive, wholeWordOnly);
-    if (containsBlockedKeyword(replaced, blockedKeywords, caseSensitive, wholeWordOnly)) {
-      return new FilterResult(true, plainMessage);
-    }
-
-    return new FilterResult(false, replaced);
+    return this.legacyCodes.normalize(input);
   }
 
-  private Map<String, Object> getReplacementRules(final FileConfiguration config) {
-    final org.bukkit.configuration.ConfigurationSection section =
-        config.getConfigurationSection("chat.filter.replacements");
-    if (section == null) {
-      return Map.of();
+  private ChatFilterEngine.Result applyChatFilter(
+      final Player player, final String plainMessage) {
+    final ChatSettings settings = settings();
+    if (!settings.filterEnabled()) {
+      return new ChatFilterEngine.Result(false, plainMessage);
     }
-    return section.getValues(false);
-  }
-
-  private boolean containsBlockedKeyword(
-      final String message,
-      final List<String> keywords,
-      final boolean caseSensitive,
-      final boolean wholeWordOnly) {
-    for (final String keyword : keywords) {
-      if (keyword == null || keyword.isBlank()) {
-        continue;
-      }
 
-      final Pattern pattern = compileRulePattern(keyword, caseSensitive, wholeWordOnly);
-      if (pattern.matcher(message).find()) {
-        return true;
-      }
+    if (this.chatPermissions.has(player, settings, ChatPermissions.FILTER_BYPASS)) {
+      return new ChatFilterEngine.Result(false, plainMessage);
     }
-    return false;
-  }
-
-  private String applyReplacementRules(
-      final String message,
-      final Map<String, Object> replacements,
-      final boolean caseSensitive,
-      final boolean wholeWordOnly) {
-    String output = message;
-    for (final Map.Entry<String, Object> entry : replacements.entrySet()) {
-      final String keyword = entry.getKey();
-      if (keyword == null || keyword.isBlank()) {
-        continue;
-      }
 
-      final String replacement = entry.getValue() == null ? "" : entry.getValue().toString();
-      final Pattern pattern = compileRulePattern(keyword, caseSensitive, wholeWordOnly);
-      output = pattern.matcher(output).replaceAll(Matcher.quoteReplacement(replacement));
-    }
-    return output;
-  }
-
-  private Pattern compileRulePattern(
-      final String rule, final boolean caseSensitive, final boolean wholeWordOnly) {
-    final boolean regexRule = rule.regionMatches(true, 0, "regex:", 0, 6);
-    final String patternText = regexRule ? rule.substring(6) : Pattern.quote(rule);
-    final String boundedPattern = !regexRule && wholeWordOnly
-        ? "\\b" + patternText + "\\b"
-        : patternText;
-    final int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
-
-    try {
-      return Pattern.compile(boundedPattern, flags);
-    } catch (PatternSyntaxException ex) {
-      this.plugin.getLogger().warning("Invalid chat.filter regex rule: " + rule);
-      return Pattern.compile(Pattern.quote(rule), flags);
-    }
+    return settings.filterEngine().evaluate(plainMessage);
   }
 
   private void sendBlockedMessageNotice(final Player player, final String originalMessage) {
-    final FileConfiguration config = this.plugin.getConfig();
-    if (!config.getBoolean("chat.filter.send-blocked-message", true)) {
+    final ChatSettings settings = settings();
+    if (!settings.sendBlockedMessage()) {
       return;
     }
 
-    final String raw = getConfigString(
-        config, "chat.filter.blocked-message", "&cYour message was blocked by chat filters.");
-    final String resolved = applyGeneralPlaceholders(player, raw, "")
-        .replace("{message}", originalMessage);
-    player.sendMessage(AMPERSAND_SERIALIZER.deserialize(resolved));
+    final GeneralPlaceholders placeholders = new GeneralPlaceholders(player, "");
+    final String resolved = renderTemplate(player, settings.blockedMessage(), placeholder ->
+        placeholder == TemplatePlaceholder.MESSAGE
+            ? originalMessage
+            : placeholders.resolve(placeholder));
+    player.sendMessage(ComponentCache.AMPERSAND_SERIALIZER.deserialize(resolved));
   }
 
-  private record FilterResult(boolean blocked, String message) {}
-
   private record DeathContext(
-      String causeKey,
-      String killerTypeKey,
+      DamageCause cause,
+      EntityType killerType,
       String killerName,
       String killerPlayerName,
-      String killerDecoratedName) {}
+      String killerDecoratedName) {
+
+    String causeKey() {
+      return this.cause == null ? ChatSettings.UNKNOWN_CAUSE_KEY : this.cause.name();
+    }
+
+    String killerTypeKey() {
+      return this.killerType == null ? "" : this.killerType.name();
+    }
+  }
 
   private record VanillaBroadcast(String type, String playerName) {}
 
-  private String getConfiguredWorldName(final Player player) {
-    final FileConfiguration config = this.plugin.getConfig();
-    final String worldName = player.getWorld().getName();
-    final String worldPath = "chat.world-name-formats.worlds." + worldName;
-    final String configuredWorldName = config.getString(worldPath);
-    if (configuredWorldName != null && !configuredWorldName.isBlank()) {
+  private WorldLabelCache.Labels getWorldLabels(final World world) {
+    final ChatSettings settings = settings();
+    final long bindingGeneration = this.integrations.bindingGeneration();
+    return this.worldLabels.get(world, settings, bindingGeneration, loaded ->
+        new WorldLabelCache.Labels(
+            getConfiguredWorldName(settings, loaded),
+            getMultiverseWorldAlias(loaded),
+            settings,
+            bindingGeneration));
+  }
+
+  private String getConfiguredWorldName(final ChatSettings settings, final World world) {
+    final String worldName = world.getName();
+    final String configuredWorldName = settings.worldName(worldName);
+    if (configuredWorldName != null) {
       return configuredWorldName;
     }
 
-    final String defaultWorldName = config.getString("chat.world-name-formats.default");
+    final String defaultWorldName = settings.defaultWorldName();
     if (defaultWorldName != null && !defaultWorldName.isBlank()) {
       return defaultWorldName.replace("{world}", worldName);
     }
@@ -1676,48 +1414,69 @@ public final class ChatFormatListener implements Listener {
     return worldName;
   }
 
-  private String getMultiverseWorldAlias(final Player player) {
-    if (!this.multiverseEnabled) {
-      return player.getWorld().getName();
-    }
-
-    final Plugin multiverse = this.plugin.getServer().getPluginManager()
-        .getPlugin("Multiverse-Core");
-    if (multiverse == null) {
-      return player.getWorld().getName();
-    }
-
-    try {
-      final Object worldManager =
-          multiverse.getClass().getMethod("getMVWorldManager").invoke(multiverse);
-      if (worldManager == null) {
-        return player.getWorld().getName();
-      }
+  private String getMultiverseWorldAlias(final World world) {
+    final String alias = this.integrations.multiverseAlias(world);
+    return alias == null ? world.getName() : alias;
+  }
 
-      final Object mvWorld = worldManager.getClass()
-          .getMethod("getMVWorld", World.class)
-          .invoke(worldManager, player.getWorld());
-      if (mvWorld == null) {
-        return player.getWorld().getName();
-      }
+  private ChatSettings settings() {
+    return this.plugin.getChatSettings();
+  }
 
-      final Object alias = mvWorld.getClass().getMethod("getAlias").invoke(mvWorld);
-      if (alias instanceof String && !((String) alias).isBlank()) {
-        return (String) alias;
+  /**
+   * Resolves the general placeholders for one render. The nickname is shared by {player} and
+   * {display_name}, and the balance by both balance placeholders, so each is looked up at most
+   * once.
+   */
+  private final class GeneralPlaceholders implements ChatTemplate.PlaceholderResolver {
+
+    private final Player player;
+    private final String prefix;
+    private String nickname;
+    private BalanceCache.Balance balance;
+
+    private GeneralPlaceholders(final Player player, final String prefix) {
+      this.player = player;
+      this.prefix = prefix;
+    }
+
+    @Override
+    public String resolve(final TemplatePlaceholder placeholder) {
+      return switch (placeholder) {
+        case PREFIX -> this.prefix;
+        case PLAYER -> getPlayerPlaceholder(this.player, nickname());
+        case REAL_PLAYER -> this.player.getName();
+        case DISPLAY_NAME -> nickname();
+        case WORLD -> getWorldLabels(this.player.getWorld()).name();
+        case WORLD_ALIAS -> getWorldLabels(this.player.getWorld()).alias();
+        case X -> Integer.toString(this.player.getLocation().getBlockX());
+        case Y -> Integer.toString(this.player.getLocation().getBlockY());
+        case Z -> Integer.toString(this.player.getLocation().getBlockZ());
+        case TIME -> settings().clock().now();
+        case WORLD_TIME_24 -> WorldTimeTable.time24(this.player.getWorld().getTime());
+        case WORLD_TIME_12 -> WorldTimeTable.time12(this.player.getWorld().getTime());
+        case ONLINE_PLAYERS ->
+            Integer.toString(ChatFormatListener.this.plugin.getServer().getOnlinePlayers().size());
+        case MAX_PLAYERS ->
+            Integer.toString(ChatFormatListener.this.plugin.getServer().getMaxPlayers());
+        case BALANCE -> balance().plain();
+        case BALANCE_FORMATTED -> balance().formatted();
+        default -> null;
+      };
+    }
+
+    private BalanceCache.Balance balance() {
+      if (this.balance == null) {
+        this.balance = getVaultBalance(this.player);
       }
-    } catch (ReflectiveOperationException ex) {
-      return player.getWorld().getName();
+      return this.balance;
     }
 
-    return player.getWorld().getName();
-  }
-
-  private String getConfigString(
-      final FileConfiguration config, final String path, final String fallback) {
-    final String value = config.getString(path);
-    if (value == null || value.isBlank()) {
-      return fallback;
+    private String nickname() {
+      if (this.nickname == null) {
+        this.nickname = getResolvedNickname(this.player);
+      }
+      return this.nickname;
     }
-    return value;
   }
 }
@@ -26,6 +26,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
 
   private static final String ROOT_PERMISSION = "hudschatformatting.admin";
   private static final String RELOAD_PERMISSION = "hudschatformatting.admin.reload";
+  private static final String CACHE_PERMISSION = "hudschatformatting.admin.cache";
   private static final String FILTER_LIST_PERMISSION = "hudschatformatting.admin.filter.list";
   private static final String FILTER_ADD_PERMISSION = "hudschatformatting.admin.filter.add";
   private static final String FILTER_EDIT_PERMISSION = "hudschatformatting.admin.filter.edit";
@@ -84,6 +85,9 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
     if ("reload".equals(sub)) {
       return handleReload(sender);
     }
+    if ("cache".equals(sub)) {
+      return handleCache(sender);
+    }
     if ("filter".equals(sub)) {
       return handleFilter(sender, label, args);
     }
@@ -106,6 +110,29 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
     return true;
   }
 
+  private boolean handleCache(final CommandSender sender) {
+    if (!sender.hasPermission(CACHE_PERMISSION)) {
+      sender.sendMessage(color("&cMissing permission: " + CACHE_PERMISSION));
+      return true;
+    }
+
+    final ComponentCache cache = this.plugin.getComponentCache();
+    final long hits = cache.hits();
+    final long misses = cache.misses();
+    final long lookups = hits + misses;
+    final long hitRate = lookups == 0L ? 0L : hits * 100L / lookups;
+    sender.sendMessage(color("&eComponent cache: &f" + cache.size() + " &eentries, &f"
+        + hits + " &ehits, &f" + misses + " &emisses (&f" + hitRate + "%&e hit rate)."));
+
+    final VanishTracker vanishTracker = this.plugin.getVanishTracker();
+    if (vanishTracker != null) {
+      sender.sendMessage(color("&eVanish poll: &f" + vanishTracker.candidates()
+          + " &ecandidates, &f" + vanishTracker.probes() + " &eprobes (&f"
+          + vanishTracker.probesPerSecond() + "&e/s)."));
+    }
+    return true;
+  }
+
   private boolean handleFilter(
       final CommandSender sender, final String label, final String[] args) {
     if (args.length < 2) {
@@ -198,7 +225,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
           new ArrayList<>(config.getStringList("chat.filter.blocked-keywords"));
       blocked.add(rule);
       config.set("chat.filter.blocked-keywords", blocked);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aAdded blocked filter #" + blocked.size() + ": &f" + rule));
       return true;
     }
@@ -215,7 +242,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
       final Map<String, Object> replacements = getReplacementMap(config);
       replacements.put(parts[0], parts[1]);
       config.set("chat.filter.replacements", replacements);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aAdded replacement: &f" + parts[0] + " &7=> &f" + parts[1]));
       return true;
     }
@@ -260,7 +287,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
 
       blocked.set(index - 1, rule);
       config.set("chat.filter.blocked-keywords", blocked);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aUpdated blocked filter #" + index + " to: &f" + rule));
       return true;
     }
@@ -282,7 +309,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
 
       replacements.put(parts[0], parts[1]);
       config.set("chat.filter.replacements", replacements);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aUpdated replacement: &f" + parts[0] + " &7=> &f" + parts[1]));
       return true;
     }
@@ -321,7 +348,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
 
       final String removed = blocked.remove(index - 1);
       config.set("chat.filter.blocked-keywords", blocked);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aRemoved blocked filter #" + index + ": &f" + removed));
       return true;
     }
@@ -341,7 +368,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
 
       replacements.remove(key);
       config.set("chat.filter.replacements", replacements);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aRemoved replacement rule: &f" + key));
       return true;
     }
@@ -368,7 +395,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
 
     final boolean enabled = Boolean.parseBoolean(raw);
     this.plugin.getConfig().set("chat.filter.enabled", enabled);
-    this.plugin.saveConfig();
+    this.plugin.savePluginConfig();
     sender.sendMessage(
         color("&aChat filter is now " + (enabled ? "&2enabled" : "&cdisabled") + "&a."));
     return true;
@@ -574,7 +601,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
           return true;
         }
         setMessageFormat(config, "messages." + type, template);
-        this.plugin.saveConfig();
+        this.plugin.savePluginConfig();
         sender.sendMessage(color("&aUpdated " + type + " format template."));
         return true;
       }
@@ -592,7 +619,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
           return true;
         }
         config.set("messages." + type + ".per-player." + playerName, template);
-        this.plugin.saveConfig();
+        this.plugin.savePluginConfig();
         sender.sendMessage(
             color("&aUpdated "
                 + type
@@ -615,7 +642,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
           return true;
         }
         setMessageFormat(config, "messages.death", template);
-        this.plugin.saveConfig();
+        this.plugin.savePluginConfig();
         sender.sendMessage(color("&aUpdated death format template."));
         return true;
       }
@@ -633,7 +660,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
           return true;
         }
         config.set("messages.death.by-cause." + cause, template);
-        this.plugin.saveConfig();
+        this.plugin.savePluginConfig();
         sender.sendMessage(color("&aUpdated death template for cause &f" + cause + "&a."));
         return true;
       }
@@ -651,7 +678,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
           return true;
         }
         config.set("messages.death.by-mob." + mob, template);
-        this.plugin.saveConfig();
+        this.plugin.savePluginConfig();
         sender.sendMessage(color("&aUpdated death template for mob &f" + mob + "&a."));
         return true;
       }
@@ -669,7 +696,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
           return true;
         }
         setMessageFormat(config, "messages.advancement", template);
-        this.plugin.saveConfig();
+        this.plugin.savePluginConfig();
         sender.sendMessage(color("&aUpdated advancement format template."));
         return true;
       }
@@ -688,7 +715,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
           return true;
         }
         config.set("messages.advancement.by-key." + key, template);
-        this.plugin.saveConfig();
+        this.plugin.savePluginConfig();
         sender.sendMessage(color("&aUpdated advancement template for key &f" + key + "&a."));
         return true;
       }
@@ -723,7 +750,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
         return true;
       }
       config.set(path, null);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aCleared " + type + " override for &f" + playerName + "&a."));
       return true;
     }
@@ -736,7 +763,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
         return true;
       }
       config.set(path, null);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aCleared death override for cause &f" + cause + "&a."));
       return true;
     }
@@ -749,7 +776,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
         return true;
       }
       config.set(path, null);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aCleared death override for mob &f" + mob + "&a."));
       return true;
     }
@@ -762,7 +789,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
         return true;
       }
       config.set(path, null);
-      this.plugin.saveConfig();
+      this.plugin.savePluginConfig();
       sender.sendMessage(color("&aCleared advancement override for key &f" + key + "&a."));
       return true;
     }
@@ -802,7 +829,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
       disabled.add(playerName);
     }
     config.set(path, disabled);
-    this.plugin.saveConfig();
+    this.plugin.savePluginConfig();
     sender.sendMessage(color("&aDisabled " + type + " messages for &f" + playerName + "&a."));
     return true;
   }
@@ -841,7 +868,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
     }
 
     config.set(path, disabled);
-    this.plugin.saveConfig();
+    this.plugin.savePluginConfig();
     sender.sendMessage(color("&aEnabled " + type + " messages for &f" + playerName + "&a."));
     return true;
   }
@@ -864,6 +891,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
 
   private void sendHelp(final CommandSender sender, final String label) {
     sender.sendMessage(color("&e/" + label + " reload"));
+    sender.sendMessage(color("&e/" + label + " cache"));
     sender.sendMessage(color("&e/" + label + " filter list [blocked|replacements]"));
     sender.sendMessage(color("&e/" + label + " filter add blocked <rule>"));
     sender.sendMessage(
@@ -983,6 +1011,7 @@ public final class ChatFormattingAdminCommand implements TabExecutor {
       final List<String> roots = new ArrayList<>();
       if (hasAdminAccess(sender)) {
         roots.add("reload");
+        roots.add("cache");
         roots.add("filter");
         roots.add("messages");
       }
@@ -0,0 +1,119 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.UUID;
+import org.bukkit.entity.Player;
+
+/**
+ * Per-player chat capability bits: color codes, format codes and filter bypass.
+ *
+ * <p>Bits are computed on join and read lock-free from async chat threads through a
+ * {@link PlayerCache}. They are rebuilt when they were computed from an older settings snapshot
+ * or with a different op status, so reloads, {@code /op} and {@code /deop} need no separate
+ * invalidation; {@code isOp()} is a field read on the player. They also expire after a TTL, and
+ * LuckPerms recalculation events invalidate single players directly.
+ */
+final class ChatPermissions {
+
+  static final int COLOR = 1;
+  static final int FORMAT = 1 << 1;
+  static final int FILTER_BYPASS = 1 << 2;
+  private static final int ALL = COLOR | FORMAT | FILTER_BYPASS;
+
+  private final PlayerCache<Bits> cache = new PlayerCache<>();
+  private final long ttlMillis;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param ttlMillis entry lifetime
+   */
+  ChatPermissions(final long ttlMillis) {
+    this.ttlMillis = ttlMillis;
+  }
+
+  /**
+   * Returns true if the player has every capability in the mask.
+   *
+   * @param player the player
+   * @param settings the current settings snapshot
+   * @param capabilities one or more capability bits
+   * @return true if all of them are granted
+   */
+  boolean has(final Player player, final ChatSettings settings, final int capabilities) {
+    return (get(player, settings) & capabilities) == capabilities;
+  }
+
+  /**
+   * Returns the player's capability bits, computing them on a miss.
+   *
+   * @param player the player
+   * @param settings the current settings snapshot
+   * @return the capability bits
+   */
+  int get(final Player player, final ChatSettings settings) {
+    return this.cache.get(
+        player.getUniqueId(),
+        cached -> cached.settings() == settings && cached.op() == player.isOp(),
+        playerId -> load(player, settings)).bits();
+  }
+
+  /**
+   * Computes and stores the player's capability bits.
+   *
+   * @param player the player
+   * @param settings the current settings snapshot
+   */
+  void refresh(final Player player, final ChatSettings settings) {
+    this.cache.put(player.getUniqueId(), load(player, settings));
+  }
+
+  /**
+   * Drops one player's bits so the next lookup recomputes them.
+   *
+   * @param playerId the player's UUID
+   */
+  void invalidate(final UUID playerId) {
+    this.cache.invalidate(playerId);
+  }
+
+  /**
+   * Drops every player's bits, for changes such as group edits that affect many players.
+   */
+  void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * Forgets a player who left.
+   *
+   * @param playerId the player's UUID
+   */
+  void forget(final UUID playerId) {
+    this.cache.forget(playerId);
+  }
+
+  private PlayerCache.Loaded<Bits> load(final Player player, final ChatSettings settings) {
+    final boolean op = player.isOp();
+    final int bits = op ? ALL : compute(player, settings);
+    return new PlayerCache.Loaded<>(new Bits(bits, op, settings), this.ttlMillis);
+  }
+
+  private static int compute(final Player player, final ChatSettings settings) {
+    int bits = 0;
+    if (player.hasPermission(settings.chatColorPermission())) {
+      bits |= COLOR;
+    }
+    if (player.hasPermission(settings.chatFormatPermission())) {
+      bits |= FORMAT;
+    }
+    if (player.hasPermission(settings.filterBypassPermission())) {
+      bits |= FILTER_BYPASS;
+    }
+    return bits;
+  }
+
+  /**
+   * Capability bits with the op status and settings snapshot they were computed from.
+   */
+  private record Bits(int bits, boolean op, ChatSettings settings) {}
+}
@@ -0,0 +1,500 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+
+/**
+ * Immutable snapshot of every config value read while formatting chat and broadcasts.
+ *
+ * <p>A new snapshot is built on enable, on reload and after admin commands edit the config, then
+ * published by the plugin through a volatile reference. Listeners never touch the live
+ * {@link FileConfiguration}, which is only safe to use from the main thread. Templates are
+ * parsed here as well, so rendering never rescans the raw config text.
+ */
+final class ChatSettings {
+
+  static final String DEFAULT_FORMAT = "&7[{time}] {prefix}&f{player}&7: {message}";
+  static final String VANILLA_TEMPLATE_TOKEN = "{vanilla}";
+  static final String UNKNOWN_CAUSE_KEY = "UNKNOWN";
+
+  private final ChatTemplate.Split format;
+  private final ChatTemplate.Split messageFormat;
+  private final boolean legacyCodesInFormat;
+  private final boolean legacyCodesInMessageFormat;
+  private final boolean placeholderApi;
+  private final String defaultWorldName;
+  private final Map<String, String> worldNames;
+  private final ChatClock clock;
+  private final boolean filterEnabled;
+  private final ChatFilterEngine filterEngine;
+  private final boolean sendBlockedMessage;
+  private final ChatTemplate blockedMessage;
+  private final String chatColorPermission;
+  private final String chatFormatPermission;
+  private final String filterBypassPermission;
+  private final boolean prefixedNicknamesInVanilla;
+  private final boolean prefixInVanillaNames;
+  private final MessageSettings join;
+  private final MessageSettings leave;
+  private final MessageSettings death;
+  private final MessageSettings advancement;
+  private final boolean hideVanishedMessages;
+  private final boolean vanishDebug;
+  private final List<String> vanishMetadataKeys;
+  private final List<String> vanishPollPermissions;
+  private final boolean disguiseNameForPlayer;
+  private final long balanceCacheMillis;
+  private final long balanceWaitMillis;
+
+  private ChatSettings(final FileConfiguration config, final Logger logger) {
+    final String configuredFormat = config.getString("chat.format", DEFAULT_FORMAT);
+    this.format = ChatTemplate.compileAroundMessage(
+        configuredFormat == null || configuredFormat.isBlank()
+            ? DEFAULT_FORMAT
+            : configuredFormat);
+    this.messageFormat = ChatTemplate.compileAroundMessage(
+        getString(config, "chat.message-format", "{message}"));
+    this.legacyCodesInFormat = config.getBoolean("chat.enable-legacy-codes-in-format", true);
+    this.legacyCodesInMessageFormat =
+        config.getBoolean("chat.enable-legacy-codes-in-message-format", true);
+    this.placeholderApi = config.getBoolean("chat.enable-placeholderapi", true);
+    this.defaultWorldName = config.getString("chat.world-name-formats.default");
+    this.worldNames = getStringMap(config, "chat.world-name-formats.worlds");
+    this.clock = ChatClock.compile(
+        config.getString("chat.time-zone", "server"),
+        config.getString("chat.time-pattern", "HH:mm:ss"),
+        logger);
+
+    this.filterEnabled = config.getBoolean("chat.filter.enabled", true);
+    this.filterEngine = ChatFilterEngine.compile(
+        config.getStringList("chat.filter.blocked-keywords"),
+        getReplacementRules(config),
+        config.getBoolean("chat.filter.case-sensitive", false),
+        config.getBoolean("chat.filter.whole-word-only", false),
+        config.getBoolean("chat.filter.apply-replacements-before-block-check", true),
+        logger);
+    this.sendBlockedMessage = config.getBoolean("chat.filter.send-blocked-message", true);
+    this.blockedMessage = ChatTemplate.compile(getString(
+        config, "chat.filter.blocked-message", "&cYour message was blocked by chat filters."));
+
+    this.chatColorPermission = getString(
+        config, "permissions.chat-color", "hudschatformatting.chat.color");
+    this.chatFormatPermission = getString(
+        config, "permissions.chat-format", "hudschatformatting.chat.format");
+    this.filterBypassPermission = getString(
+        config, "permissions.chat-filter-bypass", "hudschatformatting.chat.filter.bypass");
+
+    this.prefixedNicknamesInVanilla =
+        config.getBoolean("messages.use-prefixed-nicknames-in-vanilla", true);
+    this.prefixInVanillaNames = config.getBoolean("messages.include-prefix-in-vanilla-names", true);
+    this.join = new MessageSettings(config, "join", logger);
+    this.leave = new MessageSettings(config, "leave", logger);
+    this.death = new MessageSettings(config, "death", logger);
+    this.advancement = new MessageSettings(config, "advancement", logger);
+
+    this.hideVanishedMessages = config.getBoolean("integrations.vanish.hide-messages", true);
+    this.vanishDebug = config.getBoolean("integrations.vanish.debug", false);
+    this.vanishMetadataKeys = List.copyOf(
+        config.getStringList("integrations.vanish.metadata-keys").stream()
+            .filter(key -> key != null && !key.isBlank())
+            .toList());
+    this.vanishPollPermissions = List.copyOf(
+        config.getStringList("integrations.vanish.poll-permissions").stream()
+            .filter(permission -> permission != null && !permission.isBlank())
+            .toList());
+    this.disguiseNameForPlayer = config.getBoolean(
+        "integrations.libsdisguises.use-disguise-name-for-player-placeholder", true);
+    this.balanceCacheMillis = Math.max(0L,
+        config.getLong("integrations.vault.balance-cache-seconds", 30L)) * 1000L;
+    this.balanceWaitMillis =
+        Math.max(0L, config.getLong("integrations.vault.balance-wait-ms", 50L));
+  }
+
+  /**
+   * Builds a snapshot from the live config. Must be called from the main thread.
+   *
+   * @param config the plugin config
+   * @param logger logger used to report invalid values once per load
+   * @return the immutable settings snapshot
+   */
+  static ChatSettings fromConfig(final FileConfiguration config, final Logger logger) {
+    return new ChatSettings(config, logger);
+  }
+
+  ChatTemplate.Split format() {
+    return this.format;
+  }
+
+  ChatTemplate.Split messageFormat() {
+    return this.messageFormat;
+  }
+
+  /**
+   * Returns true if chat.format or chat.message-format shows the player's prefix.
+   */
+  boolean chatUsesPrefix() {
+    return this.format.uses(TemplatePlaceholder.PREFIX)
+        || this.messageFormat.uses(TemplatePlaceholder.PREFIX);
+  }
+
+  boolean legacyCodesInFormat() {
+    return this.legacyCodesInFormat;
+  }
+
+  boolean legacyCodesInMessageFormat() {
+    return this.legacyCodesInMessageFormat;
+  }
+
+  boolean placeholderApi() {
+    return this.placeholderApi;
+  }
+
+  String defaultWorldName() {
+    return this.defaultWorldName;
+  }
+
+  String worldName(final String worldName) {
+    return this.worldNames.get(worldName);
+  }
+
+  ChatClock clock() {
+    return this.clock;
+  }
+
+  boolean filterEnabled() {
+    return this.filterEnabled;
+  }
+
+  ChatFilterEngine filterEngine() {
+    return this.filterEngine;
+  }
+
+  boolean sendBlockedMessage() {
+    return this.sendBlockedMessage;
+  }
+
+  ChatTemplate blockedMessage() {
+    return this.blockedMessage;
+  }
+
+  String chatColorPermission() {
+    return this.chatColorPermission;
+  }
+
+  String chatFormatPermission() {
+    return this.chatFormatPermission;
+  }
+
+  String filterBypassPermission() {
+    return this.filterBypassPermission;
+  }
+
+  boolean prefixedNicknamesInVanilla() {
+    return this.prefixedNicknamesInVanilla;
+  }
+
+  boolean prefixInVanillaNames() {
+    return this.prefixInVanillaNames;
+  }
+
+  MessageSettings join() {
+    return this.join;
+  }
+
+  MessageSettings leave() {
+    return this.leave;
+  }
+
+  MessageSettings death() {
+    return this.death;
+  }
+
+  MessageSettings advancement() {
+    return this.advancement;
+  }
+
+  MessageSettings messages(final String type) {
+    return switch (type) {
+      case "leave" -> this.leave;
+      case "death" -> this.death;
+      case "advancement" -> this.advancement;
+      default -> this.join;
+    };
+  }
+
+  boolean hideVanishedMessages() {
+    return this.hideVanishedMessages;
+  }
+
+  boolean vanishDebug() {
+    return this.vanishDebug;
+  }
+
+  List<String> vanishMetadataKeys() {
+    return this.vanishMetadataKeys;
+  }
+
+  List<String> vanishPollPermissions() {
+    return this.vanishPollPermissions;
+  }
+
+  boolean disguiseNameForPlayer() {
+    return this.disguiseNameForPlayer;
+  }
+
+  long balanceCacheMillis() {
+    return this.balanceCacheMillis;
+  }
+
+  long balanceWaitMillis() {
+    return this.balanceWaitMillis;
+  }
+
+  private static String getString(
+      final ConfigurationSection config, final String path, final String fallback) {
+    final String value = config.getString(path);
+    if (value == null || value.isBlank()) {
+      return fallback;
+    }
+    return value;
+  }
+
+  private static Map<String, String> getStringMap(
+      final ConfigurationSection config, final String path) {
+    final ConfigurationSection section = config.getConfigurationSection(path);
+    if (section == null) {
+      return Map.of();
+    }
+
+    final Map<String, String> values = new LinkedHashMap<>();
+    for (final String key : section.getKeys(false)) {
+      final String value = section.getString(key);
+      if (value != null && !value.isBlank()) {
+        values.put(key, value);
+      }
+    }
+    return Collections.unmodifiableMap(values);
+  }
+
+  private static Map<String, ChatTemplate> getTemplateMap(
+      final ConfigurationSection config, final String path) {
+    final Map<String, ChatTemplate> templates = new LinkedHashMap<>();
+    for (final Map.Entry<String, String> entry : getStringMap(config, path).entrySet()) {
+      templates.put(entry.getKey(), ChatTemplate.compile(entry.getValue()));
+    }
+    return Collections.unmodifiableMap(templates);
+  }
+
+  private static Map<String, String> getReplacementRules(final ConfigurationSection config) {
+    final ConfigurationSection section = config.getConfigurationSection("chat.filter.replacements");
+    if (section == null) {
+      return Map.of();
+    }
+
+    final Map<String, String> rules = new LinkedHashMap<>();
+    for (final Map.Entry<String, Object> entry : section.getValues(false).entrySet()) {
+      final String keyword = entry.getKey();
+      if (keyword == null || keyword.isBlank()) {
+        continue;
+      }
+      rules.put(keyword, entry.getValue() == null ? "" : entry.getValue().toString());
+    }
+    return Collections.unmodifiableMap(rules);
+  }
+
+  private static Set<String> getLowerCaseSet(
+      final ConfigurationSection config, final String path) {
+    final Set<String> values = new LinkedHashSet<>();
+    for (final String value : config.getStringList(path)) {
+      if (value != null) {
+        values.add(value.toLowerCase(Locale.ENGLISH));
+      }
+    }
+    return Collections.unmodifiableSet(values);
+  }
+
+  /**
+   * Settings for one of the join, leave, death or advancement broadcasts.
+   *
+   * <p>Override tables are keyed by the values events carry, so routing an event is one or two
+   * map lookups: UUIDs, {@link EntityType} and {@link DamageCause} in enum maps, and advancement
+   * {@link NamespacedKey}s. Keys that do not parse can never match, so each one is dropped with
+   * a warning at load time. The {@code UNKNOWN} by-cause key has no enum constant and is kept in
+   * its own slot for deaths without a recorded cause.
+   */
+  static final class MessageSettings {
+
+    private final boolean enabled;
+    private final ChatTemplate format;
+    private final Map<String, ChatTemplate> perPlayer;
+    private final Map<UUID, ChatTemplate> perPlayerUuid;
+    private final Map<EntityType, ChatTemplate> byMob;
+    private final Map<DamageCause, ChatTemplate> byCause;
+    private final ChatTemplate unknownCause;
+    private final Map<NamespacedKey, ChatTemplate> byKey;
+    private final Set<String> disabledPlayers;
+    private final Set<UUID> disabledPlayerUuids;
+
+    private MessageSettings(
+        final FileConfiguration config, final String type, final Logger logger) {
+      final String basePath = "messages." + type;
+      this.enabled = config.getBoolean(basePath + ".enabled", true);
+      this.format = ChatTemplate.compile(getConfiguredMessageFormat(config, basePath));
+      this.perPlayer = getTemplateMap(config, basePath + ".per-player");
+      this.perPlayerUuid = Collections.unmodifiableMap(rekey(
+          getTemplateMap(config, basePath + ".per-player-uuid"),
+          new HashMap<>(),
+          MessageSettings::parseUuid,
+          basePath + ".per-player-uuid",
+          logger));
+      this.byMob = Collections.unmodifiableMap(rekey(
+          getTemplateMap(config, basePath + ".by-mob"),
+          new EnumMap<>(EntityType.class),
+          key -> parseEnum(EntityType.class, key),
+          basePath + ".by-mob",
+          logger));
+      final Map<String, ChatTemplate> configuredCauses =
+          getTemplateMap(config, basePath + ".by-cause");
+      final Map<String, ChatTemplate> causeTemplates = new LinkedHashMap<>();
+      ChatTemplate unknown = null;
+      for (final Map.Entry<String, ChatTemplate> entry : configuredCauses.entrySet()) {
+        if (!entry.getKey().trim().equalsIgnoreCase(UNKNOWN_CAUSE_KEY)) {
+          causeTemplates.put(entry.getKey(), entry.getValue());
+        } else if (unknown == null) {
+          unknown = entry.getValue();
+        }
+      }
+      this.unknownCause = unknown;
+      this.byCause = Collections.unmodifiableMap(rekey(
+          causeTemplates,
+          new EnumMap<>(DamageCause.class),
+          key -> parseEnum(DamageCause.class, key),
+          basePath + ".by-cause",
+          logger));
+      this.byKey = Collections.unmodifiableMap(rekey(
+          getTemplateMap(config, basePath + ".by-key"),
+          new HashMap<>(),
+          key -> NamespacedKey.fromString(key.toLowerCase(Locale.ENGLISH)),
+          basePath + ".by-key",
+          logger));
+      this.disabledPlayers = getLowerCaseSet(config, basePath + ".disabled-players");
+      final Set<UUID> disabledUuids = new HashSet<>();
+      for (final String uuid : config.getStringList(basePath + ".disabled-player-uuids")) {
+        final UUID parsed = parseUuid(uuid);
+        if (parsed != null) {
+          disabledUuids.add(parsed);
+        } else {
+          logger.warning("Ignoring invalid UUID '" + uuid + "' in " + basePath
+              + ".disabled-player-uuids in config.");
+        }
+      }
+      this.disabledPlayerUuids = Collections.unmodifiableSet(disabledUuids);
+    }
+
+    private static <K> Map<K, ChatTemplate> rekey(
+        final Map<String, ChatTemplate> templates,
+        final Map<K, ChatTemplate> target,
+        final Function<String, K> parser,
+        final String path,
+        final Logger logger) {
+      for (final Map.Entry<String, ChatTemplate> entry : templates.entrySet()) {
+        final K key = parser.apply(entry.getKey());
+        if (key != null) {
+          target.putIfAbsent(key, entry.getValue());
+        } else {
+          logger.warning("Ignoring unknown key " + path + "." + entry.getKey()
+              + " in config; it can never match.");
+        }
+      }
+      return target;
+    }
+
+    private static UUID parseUuid(final String value) {
+      if (value == null) {
+        return null;
+      }
+      try {
+        return UUID.fromString(value.trim());
+      } catch (IllegalArgumentException ex) {
+        return null;
+      }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(final Class<E> type, final String value) {
+      try {
+        return Enum.valueOf(type, value.trim().toUpperCase(Locale.ENGLISH));
+      } catch (IllegalArgumentException ex) {
+        return null;
+      }
+    }
+
+    private static String getConfiguredMessageFormat(
+        final FileConfiguration config, final String basePath) {
+      final String legacyDefault = config.getString(basePath + ".default");
+      if (legacyDefault != null && !legacyDefault.isBlank()) {
+        return legacyDefault;
+      }
+
+      final String format = config.getString(basePath + ".format");
+      if (format != null && !format.isBlank()) {
+        return format;
+      }
+      return VANILLA_TEMPLATE_TOKEN;
+    }
+
+    boolean enabled() {
+      return this.enabled;
+    }
+
+    /**
+     * Returns the global template, with the legacy "default" key already applied.
+     */
+    ChatTemplate format() {
+      return this.format;
+    }
+
+    ChatTemplate playerTemplate(final String playerName) {
+      return this.perPlayer.get(playerName);
+    }
+
+    ChatTemplate uuidTemplate(final UUID playerUuid) {
+      return this.perPlayerUuid.get(playerUuid);
+    }
+
+    ChatTemplate mobTemplate(final EntityType entityType) {
+      return entityType == null ? null : this.byMob.get(entityType);
+    }
+
+    /**
+     * Returns the by-cause template, or the {@code UNKNOWN} one when no cause was recorded.
+     */
+    ChatTemplate causeTemplate(final DamageCause damageCause) {
+      return damageCause == null ? this.unknownCause : this.byCause.get(damageCause);
+    }
+
+    ChatTemplate keyTemplate(final NamespacedKey advancementKey) {
+      return this.byKey.get(advancementKey);
+    }
+
+    boolean isDisabledFor(final String playerName, final UUID playerUuid) {
+      return this.disabledPlayerUuids.contains(playerUuid)
+          || this.disabledPlayers.contains(playerName.toLowerCase(Locale.ENGLISH));
+    }
+  }
+}
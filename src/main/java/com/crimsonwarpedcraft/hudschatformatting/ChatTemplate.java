@@ -0,0 +1,247 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * A configured chat or broadcast template, parsed once when the settings are loaded.
+ *
+ * <p>The text is split into literal runs and typed placeholder slots. Rendering resolves each
+ * referenced placeholder once and appends everything into a single builder, so expensive
+ * lookups such as economy balances or Multiverse aliases are skipped for templates that never
+ * show them. Unknown {tokens} are kept as literal text.
+ */
+final class ChatTemplate {
+
+  private static final int PLACEHOLDER_SIZE_HINT = 16;
+  private static final char VERBATIM_SENTINEL = '\uE000';
+  private static final TemplatePlaceholder[] PLACEHOLDERS = TemplatePlaceholder.values();
+
+  private final String text;
+  private final List<Segment> segments;
+  private final Set<TemplatePlaceholder> referenced;
+  private final List<TemplatePlaceholder> placeholders;
+  private final boolean vanilla;
+  private final int sizeHint;
+
+  private ChatTemplate(final String text) {
+    this.text = text;
+    this.segments = List.copyOf(parse(text));
+    this.referenced = EnumSet.noneOf(TemplatePlaceholder.class);
+    int literalLength = 0;
+    int slotCount = 0;
+    for (final Segment segment : this.segments) {
+      if (segment.placeholder() == null) {
+        literalLength += segment.literal().length();
+      } else {
+        this.referenced.add(segment.placeholder());
+        slotCount++;
+      }
+    }
+    this.placeholders = List.copyOf(this.referenced);
+    this.vanilla = text.trim().equalsIgnoreCase(ChatSettings.VANILLA_TEMPLATE_TOKEN);
+    this.sizeHint = literalLength + slotCount * PLACEHOLDER_SIZE_HINT;
+  }
+
+  /**
+   * Parses a template.
+   *
+   * @param text the raw template text from the config
+   * @return the parsed template
+   */
+  static ChatTemplate compile(final String text) {
+    return new ChatTemplate(text);
+  }
+
+  /**
+   * Parses a chat template and splits it around its first {message} token. Templates without
+   * one get the message appended after a space.
+   *
+   * @param text the raw template text from the config
+   * @return the parts rendered before and after the player's message
+   */
+  static Split compileAroundMessage(final String text) {
+    final String token = TemplatePlaceholder.MESSAGE.token();
+    final int messagePosition = text.indexOf(token);
+    if (messagePosition < 0) {
+      return new Split(compile(text + " "), compile(""));
+    }
+    return new Split(
+        compile(text.substring(0, messagePosition)),
+        compile(text.substring(messagePosition + token.length())));
+  }
+
+  String text() {
+    return this.text;
+  }
+
+  boolean uses(final TemplatePlaceholder placeholder) {
+    return this.referenced.contains(placeholder);
+  }
+
+  /**
+   * Returns true if the template is the {vanilla} token, meaning the server message is kept.
+   */
+  boolean isVanilla() {
+    return this.vanilla;
+  }
+
+  /**
+   * Renders the template.
+   *
+   * <p>Every referenced placeholder is resolved exactly once, in declaration order. Text built
+   * from literals and general placeholders is passed through the expander (PlaceholderAPI) in a
+   * single call, with each verbatim placeholder standing in as a sentinel character; the
+   * verbatim values are spliced in after expansion. If the expanded text does not hold exactly
+   * one sentinel per verbatim slot, each run between slots is expanded on its own instead. A
+   * null value leaves the token in place.
+   *
+   * @param resolver supplies placeholder values
+   * @param expander applied to the non-verbatim text, or null to skip expansion
+   * @return the rendered text
+   */
+  String render(final PlaceholderResolver resolver, final UnaryOperator<String> expander) {
+    final String[] values = new String[PLACEHOLDERS.length];
+    for (final TemplatePlaceholder placeholder : this.placeholders) {
+      values[placeholder.ordinal()] = resolver.resolve(placeholder);
+    }
+
+    final StringBuilder skeleton = new StringBuilder(this.sizeHint);
+    final List<String> verbatim = new ArrayList<>(2);
+    final List<Integer> slots = new ArrayList<>(2);
+    for (final Segment segment : this.segments) {
+      final TemplatePlaceholder placeholder = segment.placeholder();
+      if (placeholder == null) {
+        skeleton.append(segment.literal());
+        continue;
+      }
+
+      final String value = values[placeholder.ordinal()];
+      final String rendered = value == null ? placeholder.token() : value;
+      if (placeholder.verbatim()) {
+        slots.add(skeleton.length());
+        skeleton.append(VERBATIM_SENTINEL);
+        verbatim.add(rendered);
+      } else {
+        skeleton.append(rendered);
+      }
+    }
+
+    if (expander == null) {
+      return expandRuns(skeleton.toString(), slots, verbatim, UnaryOperator.identity());
+    }
+    final String expanded = expander.apply(skeleton.toString());
+    if (countSentinels(expanded) == verbatim.size()) {
+      return splice(expanded, verbatim);
+    }
+    return expandRuns(skeleton.toString(), slots, verbatim, expander);
+  }
+
+  private static String splice(final String skeleton, final List<String> verbatim) {
+    if (verbatim.isEmpty()) {
+      return skeleton;
+    }
+    final StringBuilder output = new StringBuilder(skeleton.length() + PLACEHOLDER_SIZE_HINT);
+    int start = 0;
+    for (final String value : verbatim) {
+      final int sentinel = skeleton.indexOf(VERBATIM_SENTINEL, start);
+      output.append(skeleton, start, sentinel).append(value);
+      start = sentinel + 1;
+    }
+    return output.append(skeleton, start, skeleton.length()).toString();
+  }
+
+  /**
+   * Expands each run between verbatim slots separately. Used when the expanded text has more
+   * or fewer sentinels than slots, for example because a resolved value contained one.
+   */
+  private static String expandRuns(
+      final String skeleton,
+      final List<Integer> slots,
+      final List<String> verbatim,
+      final UnaryOperator<String> expander) {
+    final StringBuilder output = new StringBuilder(skeleton.length() + PLACEHOLDER_SIZE_HINT);
+    int start = 0;
+    for (int slot = 0; slot < slots.size(); slot++) {
+      final int sentinel = slots.get(slot);
+      output.append(expander.apply(skeleton.substring(start, sentinel)))
+          .append(verbatim.get(slot));
+      start = sentinel + 1;
+    }
+    return output.append(expander.apply(skeleton.substring(start))).toString();
+  }
+
+  private static int countSentinels(final String text) {
+    int count = 0;
+    for (int index = text.indexOf(VERBATIM_SENTINEL);
+        index >= 0;
+        index = text.indexOf(VERBATIM_SENTINEL, index + 1)) {
+      count++;
+    }
+    return count;
+  }
+
+  private static List<Segment> parse(final String text) {
+    final List<Segment> segments = new ArrayList<>();
+    int literalStart = 0;
+    int open = text.indexOf('{');
+    while (open >= 0) {
+      final int close = text.indexOf('}', open + 1);
+      if (close < 0) {
+        break;
+      }
+
+      final TemplatePlaceholder placeholder =
+          TemplatePlaceholder.fromToken(text.substring(open, close + 1));
+      if (placeholder == null) {
+        open = text.indexOf('{', open + 1);
+        continue;
+      }
+
+      if (open > literalStart) {
+        segments.add(new Segment(text.substring(literalStart, open), null));
+      }
+      segments.add(new Segment(null, placeholder));
+      literalStart = close + 1;
+      open = text.indexOf('{', literalStart);
+    }
+
+    if (literalStart < text.length()) {
+      segments.add(new Segment(text.substring(literalStart), null));
+    }
+    return segments;
+  }
+
+  /**
+   * Supplies placeholder values while a template renders.
+   */
+  @FunctionalInterface
+  interface PlaceholderResolver {
+
+    /**
+     * Resolves one placeholder.
+     *
+     * @param placeholder the referenced placeholder
+     * @return the value, or null to leave the token unchanged
+     */
+    String resolve(TemplatePlaceholder placeholder);
+  }
+
+  /**
+   * A chat template split around the player's message.
+   *
+   * @param before the part rendered before the message
+   * @param after the part rendered after the message
+   */
+  record Split(ChatTemplate before, ChatTemplate after) {
+
+    boolean uses(final TemplatePlaceholder placeholder) {
+      return this.before.uses(placeholder) || this.after.uses(placeholder);
+    }
+  }
+
+  private record Segment(String literal, TemplatePlaceholder placeholder) {}
+}
@@ -0,0 +1,101 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+/**
+ * Bounded LRU cache from rendered &amp;-coded text to its parsed {@link Component}.
+ *
+ * <p>Most rendered template fragments repeat from message to message: the same prefix, world and
+ * name produce the same text. Components are immutable, so one parsed instance can be shared by
+ * every chat thread. Parsing happens outside the lock; only the map lookup and insert are
+ * synchronized. Text that differs on nearly every call, such as a template showing the current
+ * time to the second, is parsed without being cached so it does not evict reusable entries.
+ */
+final class ComponentCache {
+
+  static final LegacyComponentSerializer AMPERSAND_SERIALIZER =
+      LegacyComponentSerializer.builder().character('&').hexColors().build();
+
+  private final Lru entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity the maximum number of components kept
+   */
+  ComponentCache(final int capacity) {
+    this.entries = new Lru(capacity);
+  }
+
+  /**
+   * Parses &amp;-coded text, reusing the component from an earlier call with the same text.
+   *
+   * @param legacyText text with &amp; color and format codes
+   * @return the parsed component
+   */
+  Component deserialize(final String legacyText) {
+    Component cached;
+    synchronized (this.entries) {
+      cached = this.entries.get(legacyText);
+    }
+    if (cached != null) {
+      this.hits.increment();
+      return cached;
+    }
+
+    this.misses.increment();
+    final Component parsed = AMPERSAND_SERIALIZER.deserialize(legacyText);
+    synchronized (this.entries) {
+      cached = this.entries.putIfAbsent(legacyText, parsed);
+    }
+    return cached == null ? parsed : cached;
+  }
+
+  /**
+   * Parses &amp;-coded text, through the cache only when it is likely to repeat.
+   *
+   * @param legacyText text with &amp; color and format codes
+   * @param cacheable false for text that changes on most calls
+   * @return the parsed component
+   */
+  Component deserialize(final String legacyText, final boolean cacheable) {
+    return cacheable ? deserialize(legacyText) : AMPERSAND_SERIALIZER.deserialize(legacyText);
+  }
+
+  long hits() {
+    return this.hits.sum();
+  }
+
+  long misses() {
+    return this.misses.sum();
+  }
+
+  int size() {
+    synchronized (this.entries) {
+      return this.entries.size();
+    }
+  }
+
+  private static final class Lru extends LinkedHashMap<String, Component> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    Lru(final int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, Component> eldest) {
+      return size() > this.capacity;
+    }
+  }
+}
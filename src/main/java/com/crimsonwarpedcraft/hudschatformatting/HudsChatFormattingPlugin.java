@@ -1,5 +1,6 @@
 package com.crimsonwarpedcraft.hudschatformatting;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.papermc.lib.PaperLib;
 import java.io.File;
 import java.io.IOException;
@@ -30,30 +31,44 @@ import org.bukkit.plugin.java.JavaPlugin;
 public class HudsChatFormattingPlugin extends JavaPlugin {
 
   private static final int LARGE_CONFIG_UPDATE_THRESHOLD = 8;
+  private static final int COMPONENT_CACHE_SIZE = 1024;
   private static final DateTimeFormatter BACKUP_TIMESTAMP =
       DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
   private boolean placeholderApiEnabled;
-  private boolean multiverseEnabled;
+  private volatile ChatSettings chatSettings;
+  private final ComponentCache componentCache = new ComponentCache(COMPONENT_CACHE_SIZE);
+  private PlayerNameIndex playerNames;
+  private IntegrationRegistry integrations;
+  private VanishTracker vanishTracker;
 
   @Override
   public void onEnable() {
     PaperLib.suggestPaper(this);
     this.placeholderApiEnabled = getServer().getPluginManager().isPluginEnabled("PlaceholderAPI");
-    this.multiverseEnabled = getServer().getPluginManager().isPluginEnabled("Multiverse-Core");
 
     saveDefaultConfig();
     final int addedDefaults = mergeMissingConfigDefaults();
     persistMergedConfigIfNeeded(addedDefaults, true);
+    refreshChatSettings();
+    this.playerNames = new PlayerNameIndex(this);
+    getServer().getPluginManager().registerEvents(this.playerNames, this);
+    final IntegrationRegistry integrations =
+        new IntegrationRegistry(getServer().getPluginManager());
+    this.integrations = integrations;
+    getServer().getPluginManager().registerEvents(integrations, this);
     final ChatFormatListener listener = new ChatFormatListener(
         this,
         getLuckPerms(),
         getVaultChat(),
         getVaultEconomy(),
         this.placeholderApiEnabled,
-        this.multiverseEnabled);
+        integrations);
     getServer().getPluginManager().registerEvents(listener, this);
     listener.registerVanishMessageHooks();
+    this.vanishTracker = listener.getVanishTracker();
+    listener.registerLuckPermsInvalidationHooks();
+    listener.registerNicknameExpansionHooks();
     registerCommands();
   }
 
@@ -125,8 +140,42 @@ public class HudsChatFormattingPlugin extends JavaPlugin {
     return this.placeholderApiEnabled;
   }
 
+  /**
+   * Returns true while Multiverse-Core is enabled and bound for world aliases.
+   *
+   * @return true if Multiverse world aliases are available
+   * @deprecated this plugin no longer keeps its own flag; the answer now comes from the live
+   *     integration binding, which follows Multiverse-Core being enabled or disabled
+   */
+  @Deprecated
   public boolean isMultiverseEnabled() {
-    return this.multiverseEnabled;
+    final IntegrationRegistry registry = this.integrations;
+    return registry != null && registry.isMultiverseBound();
+  }
+
+  ChatSettings getChatSettings() {
+    return this.chatSettings;
+  }
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP",
+      justification = "The component cache is shared by the listener and the admin command.")
+  ComponentCache getComponentCache() {
+    return this.componentCache;
+  }
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP",
+      justification = "The name index is shared by the listener and the speak command.")
+  PlayerNameIndex getPlayerNames() {
+    return this.playerNames;
+  }
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP",
+      justification = "The admin command reads the live vanish probe counters.")
+  VanishTracker getVanishTracker() {
+    return this.vanishTracker;
   }
 
   private int mergeMissingConfigDefaults() {
@@ -156,6 +205,19 @@ public class HudsChatFormattingPlugin extends JavaPlugin {
     reloadConfig();
     final int addedDefaults = mergeMissingConfigDefaults();
     persistMergedConfigIfNeeded(addedDefaults, false);
+    refreshChatSettings();
+  }
+
+  /**
+   * Saves config.yml after a runtime edit and republishes the settings used by the listeners.
+   */
+  public void savePluginConfig() {
+    saveConfig();
+    refreshChatSettings();
+  }
+
+  private void refreshChatSettings() {
+    this.chatSettings = ChatSettings.fromConfig(getConfig(), getLogger());
   }
 
   private int applyDefaultsRecursively(
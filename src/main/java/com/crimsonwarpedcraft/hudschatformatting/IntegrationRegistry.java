@@ -0,0 +1,405 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+/**
+ * Typed access to the soft dependencies the listener talks to without compiling against them:
+ * SuperVanish/PremiumVanish, Essentials, LibsDisguises and Multiverse-Core.
+ *
+ * <p>Each integration is bound once, when this plugin enables and again whenever the dependency
+ * enables or disables, into {@link MethodHandle}s resolved through the dependency's own class
+ * loader. Methods looked up on objects whose class is only known at runtime, such as vanish
+ * events or Essentials users, are cached per class. Every adapter fails closed: a missing
+ * plugin, a changed API or an exception thrown by the dependency reads as "not vanished", "no
+ * disguise" or "no alias".
+ */
+final class IntegrationRegistry implements Listener {
+
+  static final Accessor GET_PLAYER = Accessor.getter("getPlayer");
+  static final Accessor IS_VANISHED = Accessor.getter("isVanished");
+  static final Accessor IS_VANISHING = Accessor.getter("isVanishing");
+  static final Accessor IS_INVISIBLE = Accessor.getter("isInvisible");
+  static final Accessor SET_SILENT = Accessor.booleanSetter("setSilent");
+  static final Accessor SET_SEND_MESSAGE = Accessor.booleanSetter("setSendMessage");
+  static final Accessor SET_BROADCAST = Accessor.booleanSetter("setBroadcast");
+  static final Accessor SET_ANNOUNCE = Accessor.booleanSetter("setAnnounce");
+
+  private static final Accessor GET_DISGUISE_NAME = Accessor.getter("getDisguiseName");
+  private static final Accessor GET_NAME = Accessor.getter("getName");
+  private static final Accessor GET_ALIAS = Accessor.getter("getAlias");
+
+  private static final String SUPER_VANISH = "SuperVanish";
+  private static final String PREMIUM_VANISH = "PremiumVanish";
+  private static final String ESSENTIALS = "Essentials";
+  private static final String LIBS_DISGUISES = "LibsDisguises";
+  private static final String MULTIVERSE = "Multiverse-Core";
+  private static final String VANISH_API = "de.myzelyam.api.vanish.VanishAPI";
+  private static final String DISGUISE_API = "me.libraryaddict.disguise.DisguiseAPI";
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+  private final PluginManager pluginManager;
+  private final AtomicLong bindingGeneration = new AtomicLong();
+  private volatile MethodHandle vanishIsInvisible;
+  private volatile MethodHandle vanishCanSee;
+  private volatile MethodHandle essentialsUserByUuid;
+  private volatile MethodHandle essentialsUserByName;
+  private volatile MethodHandle disguiseLookup;
+  private volatile MethodHandle multiverseWorldLookup;
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The server plugin manager is shared by design.")
+  IntegrationRegistry(final PluginManager pluginManager) {
+    this.pluginManager = pluginManager;
+    bindVanish(null);
+    bindEssentials(null);
+    bindDisguises(null);
+    bindMultiverse(null);
+  }
+
+  /**
+   * Rebinds an integration after its plugin enables.
+   *
+   * @param event the plugin enable event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPluginEnable(final PluginEnableEvent event) {
+    rebind(event.getPlugin().getName(), null);
+  }
+
+  /**
+   * Unbinds an integration while its plugin disables. The plugin still reports itself as
+   * enabled during this event, so it is excluded explicitly.
+   *
+   * @param event the plugin disable event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPluginDisable(final PluginDisableEvent event) {
+    final String name = event.getPlugin().getName();
+    rebind(name, name);
+  }
+
+  /**
+   * Returns a counter that changes whenever an integration is rebound, for caches built from
+   * integration lookups.
+   */
+  long bindingGeneration() {
+    return this.bindingGeneration.get();
+  }
+
+  boolean isVanishedViaVanishApi(final Player player) {
+    final MethodHandle handle = this.vanishIsInvisible;
+    if (handle == null) {
+      return false;
+    }
+    try {
+      return (boolean) handle.invokeExact(player);
+    } catch (Throwable ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Asks SuperVanish/PremiumVanish whether a viewer can see a vanished player.
+   *
+   * @param viewer the viewer
+   * @param target the possibly vanished player
+   * @return the answer, or empty when the vanish API is unavailable
+   */
+  Optional<Boolean> canSeeViaVanishApi(final Player viewer, final Player target) {
+    final MethodHandle handle = this.vanishCanSee;
+    if (handle == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of((boolean) handle.invokeExact(viewer, target));
+    } catch (Throwable ex) {
+      return Optional.empty();
+    }
+  }
+
+  boolean isVanishedViaEssentials(final Player player) {
+    final MethodHandle byUuid = this.essentialsUserByUuid;
+    final MethodHandle byName = this.essentialsUserByName;
+    if (byUuid == null && byName == null) {
+      return false;
+    }
+    try {
+      final Object user = byUuid != null
+          ? (Object) byUuid.invokeExact(player.getUniqueId())
+          : (Object) byName.invokeExact(player.getName());
+      return getBoolean(user, IS_VANISHED);
+    } catch (Throwable ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the LibsDisguises disguise name for a player.
+   *
+   * @param player the player
+   * @return the disguise name, or null when the player is not disguised
+   */
+  String disguiseName(final Player player) {
+    final MethodHandle handle = this.disguiseLookup;
+    if (handle == null) {
+      return null;
+    }
+    try {
+      final Object disguise = (Object) handle.invokeExact((Entity) player);
+      if (disguise == null) {
+        return null;
+      }
+      final String disguiseName = getString(disguise, GET_DISGUISE_NAME);
+      if (disguiseName != null && !disguiseName.isBlank()) {
+        return disguiseName;
+      }
+      final String altName = getString(disguise, GET_NAME);
+      return altName != null && !altName.isBlank() ? altName : null;
+    } catch (Throwable ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns true while Multiverse-Core is enabled and its world manager is bound.
+   */
+  boolean isMultiverseBound() {
+    return this.multiverseWorldLookup != null;
+  }
+
+  /**
+   * Returns the Multiverse alias of a world.
+   *
+   * @param world the world
+   * @return the alias, or null when Multiverse is unavailable or the alias is blank
+   */
+  String multiverseAlias(final World world) {
+    final MethodHandle handle = this.multiverseWorldLookup;
+    if (handle == null) {
+      return null;
+    }
+    try {
+      final Object multiverseWorld = (Object) handle.invokeExact(world);
+      final String alias = getString(multiverseWorld, GET_ALIAS);
+      return alias != null && !alias.isBlank() ? alias : null;
+    } catch (Throwable ex) {
+      return null;
+    }
+  }
+
+  Player getPlayer(final Object target) {
+    return invoke(target, GET_PLAYER) instanceof Player player ? player : null;
+  }
+
+  boolean getBoolean(final Object target, final Accessor getter) {
+    return Boolean.TRUE.equals(invoke(target, getter));
+  }
+
+  boolean hasMethod(final Object target, final Accessor accessor) {
+    return target != null && accessor.get(target.getClass()).isPresent();
+  }
+
+  void setBoolean(final Object target, final Accessor setter, final boolean value) {
+    if (target == null) {
+      return;
+    }
+    final Optional<MethodHandle> handle = setter.get(target.getClass());
+    if (handle.isEmpty()) {
+      return;
+    }
+    try {
+      handle.get().invokeExact(target, value);
+    } catch (Throwable ex) {
+      // Setters are best effort; a failing one leaves the event unchanged.
+    }
+  }
+
+  private static String getString(final Object target, final Accessor getter) {
+    return invoke(target, getter) instanceof String value ? value : null;
+  }
+
+  private static Object invoke(final Object target, final Accessor getter) {
+    if (target == null) {
+      return null;
+    }
+    final Optional<MethodHandle> handle = getter.get(target.getClass());
+    if (handle.isEmpty()) {
+      return null;
+    }
+    try {
+      return (Object) handle.get().invokeExact(target);
+    } catch (Throwable ex) {
+      return null;
+    }
+  }
+
+  private void rebind(final String pluginName, final String disabling) {
+    switch (pluginName) {
+      case SUPER_VANISH, PREMIUM_VANISH -> bindVanish(disabling);
+      case ESSENTIALS -> bindEssentials(disabling);
+      case LIBS_DISGUISES -> bindDisguises(disabling);
+      case MULTIVERSE -> bindMultiverse(disabling);
+      default -> {
+        return;
+      }
+    }
+    this.bindingGeneration.incrementAndGet();
+  }
+
+  private void bindVanish(final String disabling) {
+    Plugin owner = enabledPlugin(SUPER_VANISH, disabling);
+    if (owner == null) {
+      owner = enabledPlugin(PREMIUM_VANISH, disabling);
+    }
+    if (owner == null) {
+      this.vanishIsInvisible = null;
+      this.vanishCanSee = null;
+      return;
+    }
+
+    this.vanishIsInvisible = findStatic(
+        owner, VANISH_API, "isInvisible", MethodType.methodType(boolean.class, Player.class));
+    this.vanishCanSee = findStatic(
+        owner,
+        VANISH_API,
+        "canSee",
+        MethodType.methodType(boolean.class, Player.class, Player.class));
+  }
+
+  private void bindEssentials(final String disabling) {
+    final Plugin essentials = enabledPlugin(ESSENTIALS, disabling);
+    if (essentials == null) {
+      this.essentialsUserByUuid = null;
+      this.essentialsUserByName = null;
+      return;
+    }
+
+    this.essentialsUserByUuid = findBound(essentials, "getUser", UUID.class);
+    this.essentialsUserByName = this.essentialsUserByUuid == null
+        ? findBound(essentials, "getUser", String.class)
+        : null;
+  }
+
+  private void bindDisguises(final String disabling) {
+    final Plugin disguises = enabledPlugin(LIBS_DISGUISES, disabling);
+    this.disguiseLookup = disguises == null
+        ? null
+        : findStatic(
+            disguises,
+            DISGUISE_API,
+            "getDisguise",
+            MethodType.methodType(Object.class, Entity.class));
+  }
+
+  private void bindMultiverse(final String disabling) {
+    final Plugin multiverse = enabledPlugin(MULTIVERSE, disabling);
+    if (multiverse == null) {
+      this.multiverseWorldLookup = null;
+      return;
+    }
+
+    final MethodHandle getWorldManager = findBound(multiverse, "getMVWorldManager");
+    MethodHandle worldLookup = null;
+    if (getWorldManager != null) {
+      try {
+        final Object worldManager = (Object) getWorldManager.invokeExact();
+        if (worldManager != null) {
+          worldLookup = findBound(worldManager, "getMVWorld", World.class);
+        }
+      } catch (Throwable ex) {
+        worldLookup = null;
+      }
+    }
+    this.multiverseWorldLookup = worldLookup;
+  }
+
+  private Plugin enabledPlugin(final String name, final String disabling) {
+    if (name.equals(disabling) || !this.pluginManager.isPluginEnabled(name)) {
+      return null;
+    }
+    return this.pluginManager.getPlugin(name);
+  }
+
+  /**
+   * Finds a public static method in a class loaded by the owning plugin, adapted to the given
+   * type with the return value boxed to Object where requested.
+   */
+  private static MethodHandle findStatic(
+      final Plugin owner, final String className, final String name, final MethodType type) {
+    try {
+      final Class<?> api = Class.forName(className, true, owner.getClass().getClassLoader());
+      final Method method = api.getMethod(name, type.parameterArray());
+      return LOOKUP.unreflect(method).asType(type);
+    } catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Finds a public instance method on the target and binds it, adapted to return Object.
+   */
+  private static MethodHandle findBound(
+      final Object target, final String name, final Class<?>... parameterTypes) {
+    try {
+      final Method method = target.getClass().getMethod(name, parameterTypes);
+      return LOOKUP.unreflect(method)
+          .bindTo(target)
+          .asType(MethodType.methodType(Object.class, parameterTypes));
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * A public method looked up by name on runtime classes, cached per class.
+   */
+  static final class Accessor extends ClassValue<Optional<MethodHandle>> {
+
+    private final String name;
+    private final MethodType type;
+
+    private Accessor(final String name, final MethodType type) {
+      this.name = name;
+      this.type = type;
+    }
+
+    private static Accessor getter(final String name) {
+      return new Accessor(name, MethodType.methodType(Object.class, Object.class));
+    }
+
+    private static Accessor booleanSetter(final String name) {
+      return new Accessor(
+          name, MethodType.methodType(void.class, Object.class, boolean.class));
+    }
+
+    @Override
+    protected Optional<MethodHandle> computeValue(final Class<?> targetClass) {
+      try {
+        final Method method = targetClass.getMethod(
+            this.name, this.type.dropParameterTypes(0, 1).parameterArray());
+        return Optional.of(LOOKUP.unreflect(method).asType(this.type));
+      } catch (ReflectiveOperationException | RuntimeException ex) {
+        return Optional.empty();
+      }
+    }
+  }
+}
@@ -0,0 +1,256 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Aho-Corasick automaton over plain (non-regex) filter keywords.
+ *
+ * <p>A message is scanned once, left to right, no matter how many keywords are loaded. Matching
+ * mirrors the regex rules this replaces: case-insensitive mode folds code points the same way
+ * {@code Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE} does, and whole-word mode checks each
+ * hit against the JDK's own {@code \b} boundary so word characters are defined identically.
+ */
+final class KeywordMatcher {
+
+  private static final Pattern WORD_BOUNDARY = Pattern.compile("\\b");
+  private static final int[] NO_KEYS = new int[0];
+  private static final int ROOT = 0;
+
+  private final boolean caseSensitive;
+  private final boolean wholeWordOnly;
+  private final int[][] transitionKeys;
+  private final int[][] transitionTargets;
+  private final int[] failure;
+  private final int[] terminalKeyword;
+  private final int[] dictionaryLink;
+  private final int[] keywordLengths;
+
+  private KeywordMatcher(
+      final boolean caseSensitive,
+      final boolean wholeWordOnly,
+      final List<Map<Integer, Integer>> trie,
+      final int[] terminalKeyword,
+      final int[] keywordLengths) {
+    this.caseSensitive = caseSensitive;
+    this.wholeWordOnly = wholeWordOnly;
+    this.terminalKeyword = terminalKeyword;
+    this.keywordLengths = keywordLengths;
+
+    final int nodeCount = trie.size();
+    this.transitionKeys = new int[nodeCount][];
+    this.transitionTargets = new int[nodeCount][];
+    for (int node = 0; node < nodeCount; node++) {
+      final Map<Integer, Integer> edges = trie.get(node);
+      if (edges.isEmpty()) {
+        this.transitionKeys[node] = NO_KEYS;
+        this.transitionTargets[node] = NO_KEYS;
+        continue;
+      }
+      final int[] keys = new int[edges.size()];
+      int index = 0;
+      for (final int key : edges.keySet()) {
+        keys[index++] = key;
+      }
+      Arrays.sort(keys);
+      final int[] targets = new int[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        targets[i] = edges.get(keys[i]);
+      }
+      this.transitionKeys[node] = keys;
+      this.transitionTargets[node] = targets;
+    }
+
+    this.failure = new int[nodeCount];
+    this.dictionaryLink = new int[nodeCount];
+    buildFailureLinks();
+  }
+
+  /**
+   * Builds a matcher for the given keywords. Blank entries are ignored; the index of each
+   * keyword in the list is its id.
+   *
+   * @param keywords plain keywords in priority order
+   * @param caseSensitive whether matching is case-sensitive
+   * @param wholeWordOnly whether hits must sit on word boundaries
+   * @return the compiled matcher
+   */
+  static KeywordMatcher compile(
+      final List<String> keywords, final boolean caseSensitive, final boolean wholeWordOnly) {
+    final List<Map<Integer, Integer>> trie = new ArrayList<>();
+    trie.add(new HashMap<>());
+    final List<Integer> terminals = new ArrayList<>();
+    terminals.add(-1);
+    final int[] lengths = new int[keywords.size()];
+
+    for (int id = 0; id < keywords.size(); id++) {
+      final String keyword = keywords.get(id);
+      if (keyword == null || keyword.isBlank()) {
+        continue;
+      }
+
+      int node = ROOT;
+      int length = 0;
+      for (int i = 0; i < keyword.length(); ) {
+        final int codePoint = keyword.codePointAt(i);
+        i += Character.charCount(codePoint);
+        length++;
+        final int key = caseSensitive ? codePoint : fold(codePoint);
+        Integer next = trie.get(node).get(key);
+        if (next == null) {
+          next = trie.size();
+          trie.add(new HashMap<>());
+          terminals.add(-1);
+          trie.get(node).put(key, next);
+        }
+        node = next;
+      }
+
+      // Duplicate keywords keep the first id, which is also the highest priority.
+      if (terminals.get(node) < 0) {
+        terminals.set(node, id);
+      }
+      lengths[id] = length;
+    }
+
+    final int[] terminalKeyword = new int[terminals.size()];
+    for (int i = 0; i < terminalKeyword.length; i++) {
+      terminalKeyword[i] = terminals.get(i);
+    }
+    return new KeywordMatcher(caseSensitive, wholeWordOnly, trie, terminalKeyword, lengths);
+  }
+
+  boolean isEmpty() {
+    return this.transitionKeys[ROOT].length == 0;
+  }
+
+  /**
+   * Returns true if any keyword occurs in the text.
+   *
+   * @param text the text to scan
+   * @return true on the first valid hit
+   */
+  boolean matches(final String text) {
+    return scan(text, (keywordId, start, end) -> true);
+  }
+
+  /**
+   * Reports every keyword occurrence in the text, including overlapping ones, in order of
+   * their end offset.
+   *
+   * @param text the text to scan
+   * @param consumer receives the keyword id and the char range of each hit
+   */
+  void forEachMatch(final String text, final MatchConsumer consumer) {
+    scan(text, (keywordId, start, end) -> {
+      consumer.accept(keywordId, start, end);
+      return false;
+    });
+  }
+
+  private boolean scan(final String text, final HitVisitor visitor) {
+    if (isEmpty()) {
+      return false;
+    }
+
+    Matcher boundary = null;
+    int state = ROOT;
+    for (int i = 0; i < text.length(); ) {
+      final int codePoint = text.codePointAt(i);
+      i += Character.charCount(codePoint);
+      state = step(state, this.caseSensitive ? codePoint : fold(codePoint));
+
+      int node = this.terminalKeyword[state] >= 0 ? state : this.dictionaryLink[state];
+      while (node != ROOT) {
+        final int keywordId = this.terminalKeyword[node];
+        final int start = text.offsetByCodePoints(i, -this.keywordLengths[keywordId]);
+        node = this.dictionaryLink[node];
+        if (this.wholeWordOnly) {
+          if (boundary == null) {
+            boundary = WORD_BOUNDARY.matcher(text).useTransparentBounds(true);
+          }
+          if (!isBoundary(boundary, text, start) || !isBoundary(boundary, text, i)) {
+            continue;
+          }
+        }
+        if (visitor.visit(keywordId, start, i)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private int step(final int state, final int key) {
+    int current = state;
+    while (true) {
+      final int next = transition(current, key);
+      if (next >= 0) {
+        return next;
+      }
+      if (current == ROOT) {
+        return ROOT;
+      }
+      current = this.failure[current];
+    }
+  }
+
+  private int transition(final int node, final int key) {
+    final int[] keys = this.transitionKeys[node];
+    final int index = Arrays.binarySearch(keys, key);
+    return index >= 0 ? this.transitionTargets[node][index] : -1;
+  }
+
+  private void buildFailureLinks() {
+    final Queue<Integer> queue = new ArrayDeque<>();
+    for (final int child : this.transitionTargets[ROOT]) {
+      this.failure[child] = ROOT;
+      this.dictionaryLink[child] = ROOT;
+      queue.add(child);
+    }
+
+    while (!queue.isEmpty()) {
+      final int node = queue.remove();
+      final int[] keys = this.transitionKeys[node];
+      final int[] targets = this.transitionTargets[node];
+      for (int i = 0; i < keys.length; i++) {
+        final int child = targets[i];
+        final int fallback = step(this.failure[node], keys[i]);
+        this.failure[child] = fallback;
+        this.dictionaryLink[child] = this.terminalKeyword[fallback] >= 0
+            ? fallback
+            : this.dictionaryLink[fallback];
+        queue.add(child);
+      }
+    }
+  }
+
+  private static boolean isBoundary(final Matcher boundary, final String text, final int index) {
+    boundary.region(index, text.length());
+    return boundary.lookingAt();
+  }
+
+  private static int fold(final int codePoint) {
+    return Character.toLowerCase(Character.toUpperCase(codePoint));
+  }
+
+  /**
+   * Receives keyword hits from {@link #forEachMatch(String, MatchConsumer)}.
+   */
+  @FunctionalInterface
+  interface MatchConsumer {
+    void accept(int keywordId, int start, int end);
+  }
+
+  @FunctionalInterface
+  private interface HitVisitor {
+    boolean visit(int keywordId, int start, int end);
+  }
+}
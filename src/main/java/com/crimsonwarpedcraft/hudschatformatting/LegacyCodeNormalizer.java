@@ -0,0 +1,101 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rewrites prefixes and names from other plugins into the &amp;-code form used by templates.
+ *
+ * <p>Section signs become ampersands, and {@code #rrggbb} or {@code &#rrggbb} hex colors become
+ * {@code &x&r&r&g&g&b&b}. Text without a section sign or a '#' is returned unchanged without
+ * allocating. The same few prefixes and nicknames are normalized over and over, so converted
+ * results are memoized; the memo is cleared when it grows past its limit.
+ */
+final class LegacyCodeNormalizer {
+
+  private static final char SECTION_SIGN = (char) 167;
+  private static final char AMPERSAND = '&';
+  private static final char HEX_PREFIX = '#';
+  private static final int HEX_DIGITS = 6;
+  private static final int MEMO_LIMIT = 512;
+
+  private final Map<String, String> memo = new ConcurrentHashMap<>();
+
+  /**
+   * Normalizes legacy codes in the input.
+   *
+   * @param input the raw text, may be null
+   * @return the normalized text, or an empty string for null or blank input
+   */
+  String normalize(final String input) {
+    if (input == null || input.isBlank()) {
+      return "";
+    }
+    if (input.indexOf(SECTION_SIGN) < 0 && input.indexOf(HEX_PREFIX) < 0) {
+      return input;
+    }
+
+    final String cached = this.memo.get(input);
+    if (cached != null) {
+      return cached;
+    }
+
+    final String converted = convert(input);
+    if (this.memo.size() >= MEMO_LIMIT) {
+      this.memo.clear();
+    }
+    this.memo.put(input, converted);
+    return converted;
+  }
+
+  private static String convert(final String input) {
+    final int length = input.length();
+    final StringBuilder output = new StringBuilder(length + 16);
+    int index = 0;
+    while (index < length) {
+      final char current = ampersandAt(input, index);
+      if (current == AMPERSAND && isHexColorAt(input, index + 1)) {
+        appendHexColor(output, input, index + 2);
+        index += 2 + HEX_DIGITS;
+        continue;
+      }
+      if (current == HEX_PREFIX && isHexColorAt(input, index)) {
+        appendHexColor(output, input, index + 1);
+        index += 1 + HEX_DIGITS;
+        continue;
+      }
+
+      output.append(current);
+      index++;
+    }
+    return output.toString();
+  }
+
+  private static char ampersandAt(final String input, final int index) {
+    final char current = input.charAt(index);
+    return current == SECTION_SIGN ? AMPERSAND : current;
+  }
+
+  /**
+   * Returns true if a '#' followed by six hex digits starts at the index.
+   */
+  private static boolean isHexColorAt(final String input, final int index) {
+    if (index + HEX_DIGITS >= input.length() || input.charAt(index) != HEX_PREFIX) {
+      return false;
+    }
+    for (int digit = index + 1; digit <= index + HEX_DIGITS; digit++) {
+      if (Character.digit(input.charAt(digit), 16) < 0 || input.charAt(digit) >= 128) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void appendHexColor(
+      final StringBuilder output, final String input, final int firstDigit) {
+    output.append(AMPERSAND).append('x');
+    for (int digit = firstDigit; digit < firstDigit + HEX_DIGITS; digit++) {
+      output.append(AMPERSAND).append(input.charAt(digit));
+    }
+  }
+}
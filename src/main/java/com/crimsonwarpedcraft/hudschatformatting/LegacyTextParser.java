@@ -0,0 +1,236 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+
+/**
+ * Builds components directly from &amp;-coded player chat input.
+ *
+ * <p>This replaces translating allowed &amp; codes to section signs and then running the legacy
+ * section serializer over the result. Each run of text gets the same color and decorations the
+ * serializer gave it, including {@code &x&r&r&g&g&b&b} hex colors, but the input is read once
+ * and the component tree is flat: an unstyled root holding one styled child per run. Code
+ * permissions are looked up in a 128-entry table.
+ */
+final class LegacyTextParser {
+
+  private static final char AMPERSAND = '&';
+  private static final char SECTION_SIGN = (char) 167;
+  private static final char HEX_MARKER = 'x';
+  private static final int HEX_SEQUENCE_LENGTH = 14;
+  private static final int ASCII = 128;
+
+  private static final byte COLOR_PERMISSION = 1;
+  private static final byte FORMAT_PERMISSION = 2;
+  private static final byte RESET_PERMISSION = 3;
+  private static final byte[] PERMISSIONS = new byte[ASCII];
+
+  private static final TextColor[] COLORS = new TextColor[ASCII];
+  private static final TextDecoration[] DECORATIONS = new TextDecoration[ASCII];
+  private static final char RESET = 'r';
+
+  static {
+    final String colorCodes = "0123456789abcdef";
+    final NamedTextColor[] colors = {
+        NamedTextColor.BLACK, NamedTextColor.DARK_BLUE, NamedTextColor.DARK_GREEN,
+        NamedTextColor.DARK_AQUA, NamedTextColor.DARK_RED, NamedTextColor.DARK_PURPLE,
+        NamedTextColor.GOLD, NamedTextColor.GRAY, NamedTextColor.DARK_GRAY, NamedTextColor.BLUE,
+        NamedTextColor.GREEN, NamedTextColor.AQUA, NamedTextColor.RED,
+        NamedTextColor.LIGHT_PURPLE, NamedTextColor.YELLOW, NamedTextColor.WHITE};
+    for (int index = 0; index < colorCodes.length(); index++) {
+      PERMISSIONS[colorCodes.charAt(index)] = COLOR_PERMISSION;
+      COLORS[colorCodes.charAt(index)] = colors[index];
+    }
+    PERMISSIONS[HEX_MARKER] = COLOR_PERMISSION;
+
+    final String formatCodes = "klmno";
+    final TextDecoration[] decorations = {
+        TextDecoration.OBFUSCATED, TextDecoration.BOLD, TextDecoration.STRIKETHROUGH,
+        TextDecoration.UNDERLINED, TextDecoration.ITALIC};
+    for (int index = 0; index < formatCodes.length(); index++) {
+      PERMISSIONS[formatCodes.charAt(index)] = FORMAT_PERMISSION;
+      DECORATIONS[formatCodes.charAt(index)] = decorations[index];
+    }
+    PERMISSIONS[RESET] = RESET_PERMISSION;
+  }
+
+  private final String input;
+  private final boolean allowColors;
+  private final boolean allowFormats;
+  private final List<Component> runs = new ArrayList<>();
+  private final StringBuilder text = new StringBuilder();
+  private final Set<TextDecoration> decorations = EnumSet.noneOf(TextDecoration.class);
+  private String leading;
+  private TextColor color;
+
+  private LegacyTextParser(
+      final String input, final boolean allowColors, final boolean allowFormats) {
+    this.input = input;
+    this.allowColors = allowColors;
+    this.allowFormats = allowFormats;
+  }
+
+  /**
+   * Parses player input, honoring only the codes the player may use.
+   *
+   * @param input the plain chat message
+   * @param allowColors true if color codes, &amp;x hex colors and &amp;r are allowed
+   * @param allowFormats true if format codes and &amp;r are allowed
+   * @return the styled message
+   */
+  static Component parse(
+      final String input, final boolean allowColors, final boolean allowFormats) {
+    return new LegacyTextParser(input, allowColors, allowFormats).parse();
+  }
+
+  /**
+   * Returns true if a lower-cased code may be used with the given permissions.
+   */
+  private static boolean isAllowedCode(
+      final char code, final boolean allowColors, final boolean allowFormats) {
+    if (code >= ASCII) {
+      return false;
+    }
+    return switch (PERMISSIONS[code]) {
+      case COLOR_PERMISSION -> allowColors;
+      case FORMAT_PERMISSION -> allowFormats;
+      case RESET_PERMISSION -> allowColors || allowFormats;
+      default -> false;
+    };
+  }
+
+  private Component parse() {
+    final int length = this.input.length();
+    int index = 0;
+    while (index < length) {
+      final char current = charAt(index);
+      if (current == SECTION_SIGN && index + 1 < length) {
+        final TextColor hexColor = hexColorAt(index);
+        if (hexColor != null) {
+          flush();
+          this.color = hexColor;
+          this.decorations.clear();
+          index += HEX_SEQUENCE_LENGTH;
+          continue;
+        }
+        if (!endsHexSequence(index) && applyCode(charAt(index + 1))) {
+          index += 2;
+          continue;
+        }
+      }
+
+      this.text.append(current);
+      index++;
+    }
+
+    if (this.leading == null) {
+      return Component.text(this.text.toString());
+    }
+    flush();
+    return Component.text().content(this.leading).append(this.runs).build();
+  }
+
+  /**
+   * Applies a legacy code after a section sign, returning false if it is not one.
+   */
+  private boolean applyCode(final char code) {
+    if (code >= ASCII) {
+      return false;
+    }
+
+    final TextColor namedColor = COLORS[code];
+    final TextDecoration decoration = DECORATIONS[code];
+    if (namedColor == null && decoration == null && code != RESET) {
+      return false;
+    }
+
+    flush();
+    if (decoration != null) {
+      this.decorations.add(decoration);
+    } else {
+      this.color = namedColor;
+      this.decorations.clear();
+    }
+    return true;
+  }
+
+  /**
+   * Ends the current run of text. Text before the first code becomes the unstyled root content.
+   */
+  private void flush() {
+    if (this.leading == null) {
+      this.leading = this.text.toString();
+    } else if (!this.text.isEmpty()) {
+      this.runs.add(Component.text(
+          this.text.toString(), Style.style(this.color, EnumSet.copyOf(this.decorations))));
+    }
+    this.text.setLength(0);
+  }
+
+  /**
+   * Returns the color of a translated &amp;x&amp;r&amp;r&amp;g&amp;g&amp;b&amp;b sequence
+   * starting at a section sign, or null. Like the legacy serializer, only the leading x, the
+   * last section sign and the six digits are checked.
+   */
+  private TextColor hexColorAt(final int index) {
+    if (index + HEX_SEQUENCE_LENGTH > this.input.length()
+        || charAt(index + 1) != HEX_MARKER
+        || charAt(index + HEX_SEQUENCE_LENGTH - 2) != SECTION_SIGN) {
+      return null;
+    }
+
+    final char[] digits = new char[6];
+    for (int digit = 0; digit < digits.length; digit++) {
+      digits[digit] = charAt(index + 3 + digit * 2);
+    }
+    try {
+      return TextColor.color(Integer.parseInt(new String(digits), 16));
+    } catch (NumberFormatException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns true if a section sign is where a hex sequence starting twelve characters earlier
+   * would end. The legacy serializer reads such a code as part of that sequence, and leaves it
+   * as text when the sequence is malformed.
+   */
+  private boolean endsHexSequence(final int index) {
+    final int start = index - HEX_SEQUENCE_LENGTH + 2;
+    return start >= 0
+        && charAt(start) == SECTION_SIGN
+        && charAt(start + 1) == HEX_MARKER;
+  }
+
+  /**
+   * Returns the character the section-sign translation would put at an index: allowed &amp;
+   * codes become a section sign followed by the lower-cased code, everything else is unchanged.
+   */
+  private char charAt(final int index) {
+    final char current = this.input.charAt(index);
+    if (current == AMPERSAND) {
+      return index + 1 < this.input.length()
+          && isAllowedCode(Character.toLowerCase(this.input.charAt(index + 1)))
+          ? SECTION_SIGN
+          : current;
+    }
+    if (index > 0 && this.input.charAt(index - 1) == AMPERSAND) {
+      final char code = Character.toLowerCase(current);
+      if (isAllowedCode(code)) {
+        return code;
+      }
+    }
+    return current;
+  }
+
+  private boolean isAllowedCode(final char code) {
+    return isAllowedCode(code, this.allowColors, this.allowFormats);
+  }
+}
@@ -0,0 +1,139 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+
+/**
+ * Replaces raw player names in vanilla messages with their decorated forms.
+ *
+ * <p>All names are matched in one pass by a single alternation, longest name first. Where a name
+ * starts or ends with a word character, the match must not touch another word character on that
+ * side, so {@code Bob} is left alone inside {@code Bobby}. Word characters are Unicode-aware, and
+ * names that start or end with punctuation, such as Bedrock names prefixed with {@code .} or
+ * {@code *}, get no boundary check on that side. The same one or two names come up message
+ * after message, so compiled patterns are memoized by name set; the memo is cleared when it
+ * grows past its limit.
+ */
+final class NameRewriter {
+
+  private static final Pattern WORD_CHAR = Pattern.compile("\\w", Pattern.UNICODE_CHARACTER_CLASS);
+  private static final int MEMO_LIMIT = 256;
+
+  private final ComponentCache components;
+  private final Map<List<String>, Pattern> patterns = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a rewriter.
+   *
+   * @param components the cache decorated names are parsed through
+   */
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The component cache is shared with the listener and the admin command.")
+  NameRewriter(final ComponentCache components) {
+    this.components = components;
+  }
+
+  /**
+   * Rewrites a component, replacing each raw name with its parsed decorated name.
+   *
+   * @param message the message, may be null
+   * @param replacements raw names mapped to &amp;-coded decorated names
+   * @return the rewritten message
+   */
+  Component rewrite(final Component message, final Map<String, String> replacements) {
+    final Map<String, String> usable = usable(replacements);
+    if (message == null || usable.isEmpty()) {
+      return message;
+    }
+
+    final Map<String, Component> names = new LinkedHashMap<>();
+    for (final Map.Entry<String, String> replacement : usable.entrySet()) {
+      names.put(replacement.getKey(), this.components.deserialize(replacement.getValue()));
+    }
+    return message.replaceText(TextReplacementConfig.builder()
+        .match(pattern(names.keySet()))
+        .replacement((result, builder) -> names.get(result.group()))
+        .build());
+  }
+
+  /**
+   * Rewrites plain text, replacing each raw name with its decorated name.
+   *
+   * @param text the text, may be null
+   * @param replacements raw names mapped to decorated names
+   * @return the rewritten text
+   */
+  String rewrite(final String text, final Map<String, String> replacements) {
+    final Map<String, String> usable = usable(replacements);
+    if (text == null || text.isBlank() || usable.isEmpty()) {
+      return text;
+    }
+
+    final Matcher matcher = pattern(usable.keySet()).matcher(text);
+    return matcher.replaceAll(result -> Matcher.quoteReplacement(usable.get(result.group())));
+  }
+
+  private static Map<String, String> usable(final Map<String, String> replacements) {
+    final Map<String, String> usable = new LinkedHashMap<>();
+    for (final Map.Entry<String, String> replacement : replacements.entrySet()) {
+      final String rawName = replacement.getKey();
+      final String replacementName = replacement.getValue();
+      if (rawName != null
+          && !rawName.isBlank()
+          && replacementName != null
+          && !replacementName.isBlank()) {
+        usable.putIfAbsent(rawName, replacementName);
+      }
+    }
+    return usable;
+  }
+
+  private Pattern pattern(final Iterable<String> rawNames) {
+    final List<String> key = new ArrayList<>();
+    rawNames.forEach(key::add);
+    key.sort(Comparator.comparingInt(String::length).reversed()
+        .thenComparing(Comparator.naturalOrder()));
+
+    final Pattern cached = this.patterns.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    final StringBuilder regex = new StringBuilder();
+    for (int index = 0; index < key.size(); index++) {
+      if (index > 0) {
+        regex.append('|');
+      }
+      final String name = key.get(index);
+      if (isWordChar(name.codePointAt(0))) {
+        regex.append("(?<!\\w)");
+      }
+      regex.append(Pattern.quote(name));
+      if (isWordChar(name.codePointBefore(name.length()))) {
+        regex.append("(?!\\w)");
+      }
+    }
+
+    final Pattern compiled =
+        Pattern.compile(regex.toString(), Pattern.UNICODE_CHARACTER_CLASS);
+    if (this.patterns.size() >= MEMO_LIMIT) {
+      this.patterns.clear();
+    }
+    this.patterns.put(List.copyOf(key), compiled);
+    return compiled;
+  }
+
+  private static boolean isWordChar(final int codePoint) {
+    return WORD_CHAR.matcher(Character.toString(codePoint)).matches();
+  }
+}
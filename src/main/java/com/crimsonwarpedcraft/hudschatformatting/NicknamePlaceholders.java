@@ -0,0 +1,145 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.List;
+import me.clip.placeholderapi.PlaceholderAPI;
+import me.clip.placeholderapi.events.ExpansionRegisterEvent;
+import me.clip.placeholderapi.events.ExpansionUnregisterEvent;
+import me.clip.placeholderapi.events.ExpansionsLoadedEvent;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Reads nicknames through whichever PlaceholderAPI nickname expansion is installed.
+ *
+ * <p>The candidates are tried in order until one of them gives a non-blank nickname, and that
+ * candidate is then tried first. When it is blank for a player, the other candidates are still
+ * tried for that player. An uninstalled expansion leaves its placeholder unchanged, which is how
+ * the candidates are told apart; once none of them is answered at all, lookups stop until
+ * expansions change. The choice is forgotten whenever expansions are registered or
+ * unregistered, and also when the chosen placeholder stops resolving. Only register this
+ * listener while PlaceholderAPI is enabled, since its handlers reference PlaceholderAPI classes.
+ */
+final class NicknamePlaceholders implements Listener {
+
+  private static final List<String> CANDIDATES = List.of(
+      "%hexnicks_nickname%",
+      "%hexnicks_name%",
+      "%hexnicks_displayname%",
+      "%essentials_nickname%",
+      "%cmi_user_nickname%");
+  private static final int UNKNOWN = -1;
+  private static final int NONE = CANDIDATES.size();
+
+  private volatile int learned = UNKNOWN;
+
+  /**
+   * Returns the player's nickname from the installed nickname expansion.
+   *
+   * @param player the player
+   * @return the trimmed nickname, or an empty string if there is none
+   */
+  String resolve(final Player player) {
+    final int candidate = this.learned;
+    if (candidate == NONE) {
+      return "";
+    }
+    if (candidate == UNKNOWN) {
+      return learn(player);
+    }
+
+    final String resolved = expand(player, CANDIDATES.get(candidate));
+    if (resolved == null) {
+      // The expansion went away without an unregister event.
+      this.learned = UNKNOWN;
+      return learn(player);
+    }
+    if (!resolved.isEmpty()) {
+      return resolved;
+    }
+    return firstNonBlank(player, candidate);
+  }
+
+  /**
+   * Forgets the chosen candidate when an expansion is registered.
+   *
+   * @param event the register event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onExpansionRegister(final ExpansionRegisterEvent event) {
+    this.learned = UNKNOWN;
+  }
+
+  /**
+   * Forgets the chosen candidate when an expansion is unregistered.
+   *
+   * @param event the unregister event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onExpansionUnregister(final ExpansionUnregisterEvent event) {
+    this.learned = UNKNOWN;
+  }
+
+  /**
+   * Forgets the chosen candidate once PlaceholderAPI has (re)loaded its expansions.
+   *
+   * @param event the loaded event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onExpansionsLoaded(final ExpansionsLoadedEvent event) {
+    this.learned = UNKNOWN;
+  }
+
+  /**
+   * Tries every candidate and remembers the first with a non-blank answer. Blank answers are not
+   * remembered, since the player may simply have no nickname in that plugin.
+   */
+  private String learn(final Player player) {
+    boolean answered = false;
+    for (int index = 0; index < CANDIDATES.size(); index++) {
+      final String resolved = expand(player, CANDIDATES.get(index));
+      if (resolved == null) {
+        continue;
+      }
+      if (!resolved.isEmpty()) {
+        this.learned = index;
+        return resolved;
+      }
+      answered = true;
+    }
+    if (!answered) {
+      this.learned = NONE;
+    }
+    return "";
+  }
+
+  /**
+   * Returns the first non-blank answer among the candidates other than the skipped one.
+   */
+  private static String firstNonBlank(final Player player, final int skipped) {
+    for (int index = 0; index < CANDIDATES.size(); index++) {
+      if (index == skipped) {
+        continue;
+      }
+      final String resolved = expand(player, CANDIDATES.get(index));
+      if (resolved != null && !resolved.isEmpty()) {
+        return resolved;
+      }
+    }
+    return "";
+  }
+
+  /**
+   * Expands one candidate, returning null if no expansion answered it.
+   */
+  private static String expand(final Player player, final String placeholder) {
+    final String resolved = PlaceholderAPI.setPlaceholders(player, placeholder);
+    if (resolved == null) {
+      return null;
+    }
+
+    final String trimmed = resolved.trim();
+    return trimmed.equals(placeholder) ? null : trimmed;
+  }
+}
@@ -0,0 +1,131 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Per-player cache of resolved values such as chat prefixes, nicknames and permission bits.
+ *
+ * <p>Every value expires after the TTL its loader returns; values with change events, such as
+ * LuckPerms data, are also invalidated directly. Lookups may run on async chat threads while
+ * invalidations arrive from LuckPerms or the main thread. Invalidating a player swaps their
+ * entry for a fresh marker, and a lookup only stores its result if the entry it started from is
+ * still in place, so a racing lookup never restores a stale value and other players' entries
+ * are untouched. A generation counter does the same for {@link #invalidateAll()}.
+ *
+ * @param <V> the cached value type
+ */
+final class PlayerCache<V> {
+
+  private final Map<UUID, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Returns the cached value, resolving and storing it on a miss.
+   *
+   * @param playerId the player's UUID
+   * @param loader resolves the value on a miss
+   * @return the cached or freshly resolved value
+   */
+  V get(final UUID playerId, final Function<UUID, Loaded<V>> loader) {
+    return get(playerId, value -> true, loader);
+  }
+
+  /**
+   * Returns the cached value if it is still usable, resolving and storing it otherwise.
+   *
+   * @param playerId the player's UUID
+   * @param usable false for a cached value that must be reloaded before it expires
+   * @param loader resolves the value on a miss
+   * @return the cached or freshly resolved value
+   */
+  V get(
+      final UUID playerId,
+      final Predicate<? super V> usable,
+      final Function<UUID, Loaded<V>> loader) {
+    final long now = System.currentTimeMillis();
+    final Entry<V> cached = this.entries.get(playerId);
+    if (cached != null
+        && cached.value != null
+        && now < cached.expiresAt
+        && usable.test(cached.value)) {
+      return cached.value;
+    }
+
+    final long observedGeneration = this.generation.get();
+    final Loaded<V> loaded = loader.apply(playerId);
+    final Entry<V> entry = new Entry<>(loaded.value(), now + loaded.ttlMillis());
+    final boolean stored = cached == null
+        ? this.entries.putIfAbsent(playerId, entry) == null
+        : this.entries.replace(playerId, cached, entry);
+    if (stored && this.generation.get() != observedGeneration) {
+      this.entries.remove(playerId, entry);
+    }
+    return loaded.value();
+  }
+
+  /**
+   * Stores a value computed ahead of the first lookup, replacing whatever was cached.
+   *
+   * @param playerId the player's UUID
+   * @param loaded the value and its lifetime
+   */
+  void put(final UUID playerId, final Loaded<V> loaded) {
+    this.entries.put(
+        playerId, new Entry<>(loaded.value(), System.currentTimeMillis() + loaded.ttlMillis()));
+  }
+
+  /**
+   * Drops one player's value so the next lookup reloads it.
+   *
+   * @param playerId the player's UUID
+   */
+  void invalidate(final UUID playerId) {
+    this.entries.put(playerId, new Entry<>(null, 0L));
+  }
+
+  /**
+   * Drops every value, for changes such as group edits that affect many players.
+   */
+  void invalidateAll() {
+    this.generation.incrementAndGet();
+    this.entries.clear();
+  }
+
+  /**
+   * Forgets a player who left.
+   *
+   * @param playerId the player's UUID
+   */
+  void forget(final UUID playerId) {
+    this.entries.remove(playerId);
+  }
+
+  /**
+   * A freshly resolved value and how long it may be cached.
+   *
+   * @param value the value, never null
+   * @param ttlMillis cache lifetime
+   * @param <V> the value type
+   */
+  record Loaded<V>(V value, long ttlMillis) {}
+
+  /**
+   * A cached value, or an invalidation marker when the value is null. Compared by identity so a
+   * lookup can tell whether the entry it started from was replaced.
+   */
+  private static final class Entry<V> {
+
+    private final V value;
+    private final long expiresAt;
+
+    Entry(final V value, final long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
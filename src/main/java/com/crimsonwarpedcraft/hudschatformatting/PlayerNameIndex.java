@@ -0,0 +1,230 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.papermc.paper.event.player.AsyncChatEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Online players indexed by case-folded name and plain display name.
+ *
+ * <p>Exact lookups are one hash lookup. Finding a player whose name or display name appears
+ * inside a piece of text, such as the name in a vanilla-looking broadcast, runs a
+ * {@link KeywordMatcher} over the text, so it costs the length of the text rather than a pass
+ * over every player. The matchers are rebuilt lazily after players join or quit.
+ *
+ * <p>Bukkit has no display-name change event. Display names are read on join, again a tick
+ * later after other plugins have set them, and whenever the player chats; a search never
+ * re-reads them. Lookups may come from async broadcast events, so changes and rebuilds are
+ * synchronized and readers use the last published matcher.
+ */
+final class PlayerNameIndex implements Listener {
+
+  private static final PlainTextComponentSerializer PLAIN_TEXT_SERIALIZER =
+      PlainTextComponentSerializer.plainText();
+
+  private final HudsChatFormattingPlugin plugin;
+  private final Map<String, Player> byName = new ConcurrentHashMap<>();
+  private final Map<UUID, String> displayNames = new ConcurrentHashMap<>();
+  private volatile Names names;
+  private volatile Names displays;
+
+  /**
+   * Creates an index holding the players already online.
+   *
+   * @param plugin the owning plugin, for the server and scheduler
+   */
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The index reads online players and schedules through the plugin.")
+  PlayerNameIndex(final HudsChatFormattingPlugin plugin) {
+    this.plugin = plugin;
+    for (final Player player : plugin.getServer().getOnlinePlayers()) {
+      add(player);
+    }
+  }
+
+  /**
+   * Returns the online player with this name, ignoring case.
+   *
+   * @param name the player name
+   * @return the player, or null if nobody online has that name
+   */
+  Player get(final String name) {
+    return name == null ? null : this.byName.get(fold(name.trim()));
+  }
+
+  /**
+   * Returns the online player whose name, or failing that display name, appears in the text.
+   * The longest match wins.
+   *
+   * @param text the text to search
+   * @return the player, or null if no name appears in the text
+   */
+  Player findIn(final String text) {
+    if (text == null || text.isBlank()) {
+      return null;
+    }
+
+    final String folded = fold(text);
+    final Player named = names().longestIn(folded);
+    if (named != null) {
+      return named;
+    }
+    return displays().longestIn(folded);
+  }
+
+  /**
+   * Indexes a joining player.
+   *
+   * @param event the join event
+   */
+  @EventHandler(priority = EventPriority.LOWEST)
+  public void onPlayerJoin(final PlayerJoinEvent event) {
+    add(event.getPlayer());
+  }
+
+  /**
+   * Re-reads the display name once join handlers, and those on the next tick, have set it.
+   *
+   * @param event the join event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerJoinDisplayName(final PlayerJoinEvent event) {
+    final Player player = event.getPlayer();
+    refreshDisplayName(player);
+    this.plugin.getServer().getScheduler().runTask(this.plugin, () -> {
+      if (player.isOnline()) {
+        refreshDisplayName(player);
+      }
+    });
+  }
+
+  /**
+   * Re-reads the sender's display name, which nickname plugins may have changed since join.
+   *
+   * @param event the chat event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerChat(final AsyncChatEvent event) {
+    refreshDisplayName(event.getPlayer());
+  }
+
+  /**
+   * Drops a player after every other quit handler has run.
+   *
+   * @param event the quit event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerQuit(final PlayerQuitEvent event) {
+    remove(event.getPlayer());
+  }
+
+  private synchronized void add(final Player player) {
+    this.byName.put(fold(player.getName()), player);
+    this.displayNames.put(player.getUniqueId(), displayName(player));
+    this.names = null;
+    this.displays = null;
+  }
+
+  private synchronized void remove(final Player player) {
+    this.byName.remove(fold(player.getName()), player);
+    this.displayNames.remove(player.getUniqueId());
+    this.names = null;
+    this.displays = null;
+  }
+
+  private synchronized void refreshDisplayName(final Player player) {
+    final String displayName = displayName(player);
+    if (!displayName.equals(this.displayNames.put(player.getUniqueId(), displayName))) {
+      this.displays = null;
+    }
+  }
+
+  private Names names() {
+    final Names current = this.names;
+    return current != null ? current : buildNames();
+  }
+
+  private Names displays() {
+    final Names current = this.displays;
+    return current != null ? current : buildDisplays();
+  }
+
+  private synchronized Names buildNames() {
+    if (this.names == null) {
+      this.names = Names.compile(this.byName);
+    }
+    return this.names;
+  }
+
+  private synchronized Names buildDisplays() {
+    if (this.displays == null) {
+      final Map<String, Player> patterns = new LinkedHashMap<>();
+      for (final Player player : this.byName.values()) {
+        final String displayName = this.displayNames.get(player.getUniqueId());
+        if (displayName != null && !displayName.isBlank()) {
+          patterns.putIfAbsent(displayName, player);
+        }
+      }
+      this.displays = Names.compile(patterns);
+    }
+    return this.displays;
+  }
+
+  private static String displayName(final Player player) {
+    return fold(PLAIN_TEXT_SERIALIZER.serialize(player.displayName()));
+  }
+
+  private static String fold(final String text) {
+    return text.toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * A keyword matcher over a fixed set of names, with the player behind each keyword id.
+   */
+  private static final class Names {
+
+    private final KeywordMatcher matcher;
+    private final List<Player> players;
+
+    private Names(final KeywordMatcher matcher, final List<Player> players) {
+      this.matcher = matcher;
+      this.players = players;
+    }
+
+    static Names compile(final Map<String, Player> patterns) {
+      final List<String> keywords = new ArrayList<>(patterns.size());
+      final List<Player> players = new ArrayList<>(patterns.size());
+      for (final Map.Entry<String, Player> pattern : patterns.entrySet()) {
+        keywords.add(pattern.getKey());
+        players.add(pattern.getValue());
+      }
+      return new Names(KeywordMatcher.compile(keywords, false, false), List.copyOf(players));
+    }
+
+    Player longestIn(final String text) {
+      final Player[] best = new Player[1];
+      final int[] bestLength = new int[1];
+      this.matcher.forEachMatch(text, (keywordId, start, end) -> {
+        if (end - start > bestLength[0]) {
+          best[0] = this.players.get(keywordId);
+          bestLength[0] = end - start;
+        }
+      });
+      return best[0];
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Player names seen within a short window, matched case-insensitively.
+ *
+ * <p>Expiry uses a hashed timing wheel: each name is queued in the bucket for the tick its window
+ * ends in, and the buckets of ticks that have passed are drained on the next call. The wheel has
+ * one more bucket than the window has ticks, so a bucket never mixes expired names with names
+ * queued a full turn later. Insert, lookup and removal are O(1), and expiry is amortized O(1)
+ * per name, however many names are held. Join, quit and broadcast events may arrive on
+ * different threads, so every method is synchronized.
+ */
+final class RecentNames {
+
+  private static final long TICK_MILLIS = 250L;
+
+  private final long windowMillis;
+  private final Map<String, Long> deadlines = new HashMap<>();
+  private final ArrayDeque<Slot>[] wheel;
+  private long lastTick;
+
+  /**
+   * Creates an empty set.
+   *
+   * @param windowMillis how long a name stays in the set after it is added
+   */
+  @SuppressWarnings("unchecked")
+  RecentNames(final long windowMillis) {
+    this.windowMillis = windowMillis;
+    final int buckets = (int) ((windowMillis + TICK_MILLIS - 1) / TICK_MILLIS) + 1;
+    this.wheel = new ArrayDeque[buckets];
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      this.wheel[bucket] = new ArrayDeque<>();
+    }
+    this.lastTick = System.currentTimeMillis() / TICK_MILLIS;
+  }
+
+  /**
+   * Adds a name, restarting its window if it is already present.
+   *
+   * @param name the player name
+   */
+  synchronized void add(final String name) {
+    final long now = System.currentTimeMillis();
+    advance(now);
+    final String key = key(name);
+    final long deadline = now + this.windowMillis;
+    this.deadlines.put(key, deadline);
+    this.wheel[bucket(deadline / TICK_MILLIS)].add(new Slot(key, deadline));
+  }
+
+  /**
+   * Returns true if the name was added less than one window ago.
+   *
+   * @param name the player name
+   * @return true if the name is present
+   */
+  synchronized boolean contains(final String name) {
+    final long now = System.currentTimeMillis();
+    advance(now);
+    final Long deadline = this.deadlines.get(key(name));
+    return deadline != null && deadline > now;
+  }
+
+  synchronized void remove(final String name) {
+    advance(System.currentTimeMillis());
+    this.deadlines.remove(key(name));
+  }
+
+  /**
+   * Drains the buckets of every tick that ended before now.
+   */
+  private void advance(final long now) {
+    final long currentTick = now / TICK_MILLIS;
+    if (currentTick - this.lastTick >= this.wheel.length) {
+      // Every name was added at least one window ago.
+      for (final ArrayDeque<Slot> bucket : this.wheel) {
+        bucket.clear();
+      }
+      this.deadlines.clear();
+      this.lastTick = currentTick;
+      return;
+    }
+
+    for (; this.lastTick < currentTick; this.lastTick++) {
+      final ArrayDeque<Slot> bucket = this.wheel[bucket(this.lastTick)];
+      Slot slot;
+      while ((slot = bucket.poll()) != null) {
+        this.deadlines.remove(slot.key(), slot.deadline());
+      }
+    }
+  }
+
+  private int bucket(final long tick) {
+    return (int) (tick % this.wheel.length);
+  }
+
+  private static String key(final String name) {
+    return name.toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * A queued name and the deadline it was queued with. A name added again is queued again, and
+   * the older slot no longer matches its deadline when drained.
+   */
+  private record Slot(String key, long deadline) {}
+}
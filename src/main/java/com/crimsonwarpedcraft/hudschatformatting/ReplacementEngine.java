@@ -0,0 +1,138 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies every chat.filter.replacements rule in a single left-to-right pass.
+ *
+ * <p>Plain rules share one {@link KeywordMatcher}; "regex:" rules are searched individually.
+ * All hits are then resolved against the original message: scanning from the left, the longest
+ * hit starting at a position wins, ties go to the rule listed first in the config, and any hit
+ * overlapping an already chosen one is dropped. Replacement text is never rescanned, so one rule
+ * cannot rewrite the output of another.
+ *
+ * <p>For rules whose matches do not overlap this gives the same output as running
+ * {@code replaceAll} once per rule in config order, with one output buffer instead of one string
+ * per rule.
+ */
+final class ReplacementEngine {
+
+  private static final Comparator<Hit> HIT_ORDER = Comparator
+      .comparingInt(Hit::start)
+      .thenComparing(Comparator.comparingInt(Hit::length).reversed())
+      .thenComparingInt(Hit::rule);
+
+  private final KeywordMatcher plainRules;
+  private final List<RegexRule> regexRules;
+  private final String[] replacements;
+
+  private ReplacementEngine(
+      final KeywordMatcher plainRules,
+      final List<RegexRule> regexRules,
+      final String[] replacements) {
+    this.plainRules = plainRules;
+    this.regexRules = List.copyOf(regexRules);
+    this.replacements = replacements;
+  }
+
+  /**
+   * Compiles the configured replacement rules.
+   *
+   * @param replacementRules replacement text keyed by match rule, in config order
+   * @param caseSensitive whether plain and regex rules match case-sensitively
+   * @param wholeWordOnly whether plain rules only match whole words
+   * @param logger logger used to report invalid regex rules
+   * @return the compiled engine
+   */
+  static ReplacementEngine compile(
+      final Map<String, String> replacementRules,
+      final boolean caseSensitive,
+      final boolean wholeWordOnly,
+      final Logger logger) {
+    final List<String> plainKeywords = new ArrayList<>(replacementRules.size());
+    final List<RegexRule> regexRules = new ArrayList<>();
+    final List<String> replacements = new ArrayList<>(replacementRules.size());
+    for (final Map.Entry<String, String> entry : replacementRules.entrySet()) {
+      final String keyword = entry.getKey();
+      if (keyword == null || keyword.isBlank()) {
+        continue;
+      }
+
+      // Rule ids follow config order; a regex rule leaves a gap in the plain keyword list.
+      final int rule = replacements.size();
+      replacements.add(entry.getValue() == null ? "" : entry.getValue());
+      if (ChatFilterEngine.isRegexRule(keyword)) {
+        plainKeywords.add(null);
+        regexRules.add(new RegexRule(
+            ChatFilterEngine.compileRulePattern(keyword, caseSensitive, wholeWordOnly, logger),
+            rule));
+      } else {
+        plainKeywords.add(keyword);
+      }
+    }
+
+    return new ReplacementEngine(
+        KeywordMatcher.compile(plainKeywords, caseSensitive, wholeWordOnly),
+        regexRules,
+        replacements.toArray(new String[0]));
+  }
+
+  boolean isEmpty() {
+    return this.replacements.length == 0;
+  }
+
+  /**
+   * Replaces every selected rule hit in the message.
+   *
+   * @param message the plain chat message
+   * @return the rewritten message, or the same instance when nothing matched
+   */
+  String apply(final String message) {
+    if (isEmpty() || message.isEmpty()) {
+      return message;
+    }
+
+    final List<Hit> hits = new ArrayList<>();
+    this.plainRules.forEachMatch(
+        message, (rule, start, end) -> hits.add(new Hit(start, end, rule)));
+    for (final RegexRule regexRule : this.regexRules) {
+      final Matcher matcher = regexRule.pattern().matcher(message);
+      while (matcher.find()) {
+        hits.add(new Hit(matcher.start(), matcher.end(), regexRule.rule()));
+      }
+    }
+    if (hits.isEmpty()) {
+      return message;
+    }
+    hits.sort(HIT_ORDER);
+
+    final StringBuilder output = new StringBuilder(message.length() + 16);
+    int cursor = 0;
+    int lastEmptyHit = -1;
+    for (final Hit hit : hits) {
+      if (hit.start() < cursor || hit.length() == 0 && hit.start() == lastEmptyHit) {
+        continue;
+      }
+      output.append(message, cursor, hit.start()).append(this.replacements[hit.rule()]);
+      cursor = hit.end();
+      if (hit.length() == 0) {
+        lastEmptyHit = hit.start();
+      }
+    }
+    return output.append(message, cursor, message.length()).toString();
+  }
+
+  private record RegexRule(Pattern pattern, int rule) {}
+
+  private record Hit(int start, int end, int rule) {
+    int length() {
+      return this.end - this.start;
+    }
+  }
+}
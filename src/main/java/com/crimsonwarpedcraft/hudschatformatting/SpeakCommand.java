@@ -191,17 +191,8 @@ public final class SpeakCommand implements TabExecutor {
       return Collections.emptyList();
     }
 
-    final Player exact = Bukkit.getPlayerExact(token);
-    if (exact != null) {
-      return List.of(exact);
-    }
-
-    for (final Player player : Bukkit.getOnlinePlayers()) {
-      if (player.getName().equalsIgnoreCase(token)) {
-        return List.of(player);
-      }
-    }
-    return Collections.emptyList();
+    final Player named = this.plugin.getPlayerNames().get(token);
+    return named == null ? Collections.emptyList() : List.of(named);
   }
 
   private Player findNearestPlayer(final Location origin) {
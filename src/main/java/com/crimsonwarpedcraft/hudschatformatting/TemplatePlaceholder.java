@@ -0,0 +1,80 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Built-in {token} placeholders understood by chat and broadcast templates.
+ *
+ * <p>General placeholders are resolved in declaration order and are part of the text handed to
+ * PlaceholderAPI. The remaining constants are only filled in by the message type they belong to
+ * and are inserted verbatim afterwards, so player messages and vanilla text are never expanded.
+ */
+enum TemplatePlaceholder {
+  PREFIX("{prefix}"),
+  PLAYER("{player}"),
+  REAL_PLAYER("{real_player}"),
+  DISPLAY_NAME("{display_name}"),
+  WORLD("{world}"),
+  WORLD_ALIAS("{world_alias}"),
+  X("{x}"),
+  Y("{y}"),
+  Z("{z}"),
+  TIME("{time}"),
+  WORLD_TIME_24("{world_time_24}"),
+  WORLD_TIME_12("{world_time_12}"),
+  ONLINE_PLAYERS("{online_players}"),
+  MAX_PLAYERS("{max_players}"),
+  BALANCE("{balance}"),
+  BALANCE_FORMATTED("{balance_formatted}"),
+  MESSAGE("{message}", true),
+  EVENT("{event}", true),
+  DEATH_MESSAGE("{death_message}", true),
+  DEATH_CAUSE("{death_cause}", true),
+  KILLER("{killer}", true),
+  KILLER_TYPE("{killer_type}", true),
+  ADVANCEMENT_KEY("{advancement_key}", true),
+  ADVANCEMENT_MESSAGE("{advancement_message}", true),
+  ADVANCEMENT_TITLE("{advancement_title}", true);
+
+  private static final Map<String, TemplatePlaceholder> BY_TOKEN = new HashMap<>();
+
+  static {
+    for (final TemplatePlaceholder placeholder : values()) {
+      BY_TOKEN.put(placeholder.token, placeholder);
+    }
+  }
+
+  private final String token;
+  private final boolean verbatim;
+
+  TemplatePlaceholder(final String token) {
+    this(token, false);
+  }
+
+  TemplatePlaceholder(final String token, final boolean verbatim) {
+    this.token = token;
+    this.verbatim = verbatim;
+  }
+
+  /**
+   * Looks up a placeholder by its full token, braces included.
+   *
+   * @param token the token text
+   * @return the placeholder, or null if the token is not built in
+   */
+  static TemplatePlaceholder fromToken(final String token) {
+    return BY_TOKEN.get(token);
+  }
+
+  String token() {
+    return this.token;
+  }
+
+  /**
+   * Returns true if the value is inserted after PlaceholderAPI instead of before it.
+   */
+  boolean verbatim() {
+    return this.verbatim;
+  }
+}
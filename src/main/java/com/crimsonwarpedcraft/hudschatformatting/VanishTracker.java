@@ -0,0 +1,252 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Tracks which online players are vanished.
+ *
+ * <p>Vanish plugin events are the primary source and are recorded as they arrive. Plugins that
+ * only expose state through an API call or metadata are caught by a residual poll over the
+ * players whose state can change: those currently vanished, plus those the caller says may
+ * vanish. That candidate set is kept up to date from join, quit and vanish events, and rebuilt
+ * only when the settings snapshot changes, so a poll never re-tests every online player. Each
+ * cycle snapshots the candidates once and probes them in round-robin slices of
+ * {@code ceil(n / cycle ticks)}, spread evenly over the cycle; an empty cycle just waits it out.
+ * A cycle starts at one second and doubles, up to eight seconds, each time it sees no change.
+ * Everything runs on the main thread.
+ */
+final class VanishTracker implements Runnable {
+
+  private static final long FIRST_DELAY_TICKS = 40L;
+  private static final long MIN_CYCLE_TICKS = 20L;
+  private static final long MAX_CYCLE_TICKS = 160L;
+  private static final long MILLIS_PER_SECOND = 1000L;
+
+  private final Plugin plugin;
+  private final BooleanSupplier debug;
+  private final Supplier<?> settings;
+  private final Predicate<Player> mayVanish;
+  private final Predicate<Player> probe;
+  private final BiConsumer<Player, Boolean> onChange;
+  private final Map<UUID, Boolean> states = new HashMap<>();
+  private final Set<UUID> mayVanishIds = new HashSet<>();
+  private Object candidateSettings;
+  private List<Player> cycle = List.of();
+  private int cursor;
+  private int sliceSize;
+  private long sliceDelayTicks;
+  private long cycleTicks = MIN_CYCLE_TICKS;
+  private boolean changedThisCycle;
+  private long probes;
+  private long startMillis;
+  private boolean started;
+
+  /**
+   * Creates a tracker.
+   *
+   * @param plugin the owning plugin, for the scheduler, online players and logger
+   * @param debug true while vanish debug logging is enabled
+   * @param settings the current settings snapshot; candidates are re-tested when it changes
+   * @param mayVanish true if a player could become vanished by a plugin without events
+   * @param probe the reflective vanish check for one player
+   * @param onChange called when polling sees a player's state flip
+   */
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The tracker schedules and logs through the shared plugin instance.")
+  VanishTracker(
+      final Plugin plugin,
+      final BooleanSupplier debug,
+      final Supplier<?> settings,
+      final Predicate<Player> mayVanish,
+      final Predicate<Player> probe,
+      final BiConsumer<Player, Boolean> onChange) {
+    this.plugin = plugin;
+    this.debug = debug;
+    this.settings = settings;
+    this.mayVanish = mayVanish;
+    this.probe = probe;
+    this.onChange = onChange;
+  }
+
+  /**
+   * Starts the residual poll, once.
+   */
+  void start() {
+    if (this.started) {
+      return;
+    }
+    this.started = true;
+    this.startMillis = System.currentTimeMillis();
+    this.plugin.getServer().getScheduler().runTaskLater(this.plugin, this, FIRST_DELAY_TICKS);
+  }
+
+  /**
+   * Adds a joining player to the candidates if a plugin without events could vanish them.
+   *
+   * @param player the player
+   */
+  void track(final Player player) {
+    if (this.mayVanish.test(player)) {
+      this.mayVanishIds.add(player.getUniqueId());
+    }
+  }
+
+  /**
+   * Records a state reported by a vanish event.
+   *
+   * @param player the player
+   * @param vanished true if the player is now vanished
+   * @return true if this differs from the last known state, or no state was known
+   */
+  boolean record(final Player player, final boolean vanished) {
+    if (player == null) {
+      return false;
+    }
+    final Boolean previous = this.states.put(player.getUniqueId(), vanished);
+    return previous == null || previous != vanished;
+  }
+
+  void forget(final Player player) {
+    if (player != null) {
+      this.states.remove(player.getUniqueId());
+      this.mayVanishIds.remove(player.getUniqueId());
+    }
+  }
+
+  /**
+   * Returns how many reflective probes the poll has made since it started.
+   */
+  long probes() {
+    return this.probes;
+  }
+
+  /**
+   * Returns the average probe rate since the poll started.
+   */
+  long probesPerSecond() {
+    if (!this.started) {
+      return 0L;
+    }
+    final long elapsed = Math.max(1L, System.currentTimeMillis() - this.startMillis);
+    return this.probes * MILLIS_PER_SECOND / elapsed;
+  }
+
+  /**
+   * Returns how many players the current cycle probes.
+   */
+  int candidates() {
+    return this.cycle.size();
+  }
+
+  @Override
+  public void run() {
+    long delay = this.cycleTicks;
+    try {
+      if (this.cursor == 0) {
+        beginCycle();
+      }
+
+      final int end = Math.min(this.cycle.size(), this.cursor + this.sliceSize);
+      while (this.cursor < end) {
+        check(this.cycle.get(this.cursor++));
+      }
+
+      if (!this.cycle.isEmpty()) {
+        delay = this.sliceDelayTicks;
+      }
+      if (this.cursor >= this.cycle.size()) {
+        endCycle();
+      }
+    } finally {
+      // Rescheduled even if a probe throws, so one bad slice does not stop polling for good.
+      this.plugin.getServer().getScheduler().runTaskLater(this.plugin, this, delay);
+    }
+  }
+
+  private void beginCycle() {
+    final Object current = this.settings.get();
+    if (current != this.candidateSettings) {
+      // Poll permissions may have changed, so every online player is re-tested once.
+      this.candidateSettings = current;
+      this.mayVanishIds.clear();
+      for (final Player player : this.plugin.getServer().getOnlinePlayers()) {
+        track(player);
+      }
+    }
+
+    final Set<UUID> ids = new HashSet<>(this.mayVanishIds);
+    this.states.forEach((uuid, vanished) -> {
+      if (vanished) {
+        ids.add(uuid);
+      }
+    });
+    final List<Player> candidates = new ArrayList<>(ids.size());
+    for (final UUID uuid : ids) {
+      final Player player = this.plugin.getServer().getPlayer(uuid);
+      if (player != null) {
+        candidates.add(player);
+      }
+    }
+
+    final int size = candidates.size();
+    final long slices;
+    if (size == 0) {
+      this.sliceSize = 0;
+      slices = 1L;
+    } else {
+      this.sliceSize = (int) ((size + this.cycleTicks - 1) / this.cycleTicks);
+      slices = (size + this.sliceSize - 1) / this.sliceSize;
+    }
+    this.sliceDelayTicks = Math.max(1L, this.cycleTicks / slices);
+    this.cycle = candidates;
+    this.changedThisCycle = false;
+  }
+
+  private void check(final Player player) {
+    if (!player.isOnline()) {
+      return;
+    }
+
+    this.probes++;
+    final boolean vanished = this.probe.test(player);
+    final Boolean previous = this.states.put(player.getUniqueId(), vanished);
+    if (previous == null || previous == vanished) {
+      return;
+    }
+
+    this.changedThisCycle = true;
+    if (this.debug.getAsBoolean()) {
+      this.plugin.getLogger().info(
+          "[VanishDebug] " + player.getName() + " changed vanished=" + previous
+              + " -> " + vanished);
+    }
+    this.onChange.accept(player, vanished);
+  }
+
+  private void endCycle() {
+    if (this.debug.getAsBoolean()) {
+      this.plugin.getLogger().info(
+          "[VanishDebug] poll checked " + this.cycle.size() + " players over "
+              + this.cycleTicks + " ticks, " + probesPerSecond() + " probes/s");
+    }
+
+    this.cycleTicks = this.changedThisCycle
+        ? MIN_CYCLE_TICKS
+        : Math.min(MAX_CYCLE_TICKS, this.cycleTicks * 2);
+    this.cursor = 0;
+  }
+}
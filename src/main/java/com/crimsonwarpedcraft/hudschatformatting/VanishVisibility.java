@@ -0,0 +1,157 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import net.kyori.adventure.audience.Audience;
+import org.bukkit.entity.Player;
+
+/**
+ * Cached SuperVanish/PremiumVanish {@code canSee} answers, keyed by vanished player and viewer.
+ *
+ * <p>Viewers who can see a vanished player should not get that player's fake join and leave
+ * messages. The vanish API only answers {@code canSee} meaningfully while the target is hidden,
+ * so every online viewer's answer is recorded once the target is hidden, and again for each
+ * viewer who joins while it stays hidden; the reappear message then always has an answer. A
+ * target's answers are dropped only when it actually vanishes again, since its vanish level may
+ * have changed meanwhile, and everything is dropped when the vanish plugin is rebound. Used
+ * from the main thread only.
+ */
+final class VanishVisibility {
+
+  private final IntegrationRegistry integrations;
+  private final Map<UUID, Map<UUID, Boolean>> answers = new HashMap<>();
+  private long bindingGeneration;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param integrations the vanish API binding
+   */
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The registry is shared so rebinding is seen by every cache.")
+  VanishVisibility(final IntegrationRegistry integrations) {
+    this.integrations = integrations;
+    this.bindingGeneration = integrations.bindingGeneration();
+  }
+
+  /**
+   * Returns everyone who should get a fake join or leave message for the target: every online
+   * player except the target and viewers who can see through its vanish.
+   *
+   * @param target the vanished or reappearing player
+   * @param online the online players
+   * @return a forwarding audience over the recipients
+   */
+  Audience recipients(final Player target, final Collection<? extends Player> online) {
+    checkBinding();
+    final Map<UUID, Boolean> known = this.answers.get(target.getUniqueId());
+    final boolean askApi = this.integrations.isVanishedViaVanishApi(target);
+    final List<Player> recipients = new ArrayList<>(online.size());
+    for (final Player viewer : online) {
+      if (!viewer.equals(target) && !seesVanished(viewer, target, known, askApi)) {
+        recipients.add(viewer);
+      }
+    }
+    return Audience.audience(recipients);
+  }
+
+  private boolean seesVanished(
+      final Player viewer,
+      final Player target,
+      final Map<UUID, Boolean> known,
+      final boolean askApi) {
+    final Boolean cached = known == null ? null : known.get(viewer.getUniqueId());
+    if (cached != null) {
+      return cached;
+    }
+    if (!askApi) {
+      return false;
+    }
+
+    return ask(viewer, target);
+  }
+
+  /**
+   * Records every online viewer's answer about a target that is now hidden.
+   *
+   * @param target the player who vanished
+   * @param online the online players
+   */
+  void learnTarget(final Player target, final Collection<? extends Player> online) {
+    checkBinding();
+    if (!this.integrations.isVanishedViaVanishApi(target)) {
+      return;
+    }
+    final Map<UUID, Boolean> known = this.answers.get(target.getUniqueId());
+    for (final Player viewer : online) {
+      if (!viewer.equals(target)
+          && (known == null || !known.containsKey(viewer.getUniqueId()))) {
+        ask(viewer, target);
+      }
+    }
+  }
+
+  /**
+   * Records a joining viewer's answers about every target that is still hidden.
+   *
+   * @param viewer the player who joined
+   * @param online the online players
+   */
+  void learnViewer(final Player viewer, final Collection<? extends Player> online) {
+    checkBinding();
+    if (this.answers.isEmpty()) {
+      return;
+    }
+    for (final Player target : online) {
+      if (!target.equals(viewer)
+          && this.answers.containsKey(target.getUniqueId())
+          && this.integrations.isVanishedViaVanishApi(target)) {
+        ask(viewer, target);
+      }
+    }
+  }
+
+  private boolean ask(final Player viewer, final Player target) {
+    final boolean sees =
+        this.integrations.canSeeViaVanishApi(viewer, target).orElse(Boolean.FALSE);
+    this.answers.computeIfAbsent(target.getUniqueId(), uuid -> new HashMap<>())
+        .put(viewer.getUniqueId(), sees);
+    return sees;
+  }
+
+  private void checkBinding() {
+    final long generation = this.integrations.bindingGeneration();
+    if (generation != this.bindingGeneration) {
+      this.answers.clear();
+      this.bindingGeneration = generation;
+    }
+  }
+
+  /**
+   * Drops the answers about one target, leaving every other target's answers in place.
+   *
+   * @param target the player who just vanished
+   */
+  void invalidate(final Player target) {
+    this.answers.remove(target.getUniqueId());
+  }
+
+  /**
+   * Drops every answer about or for a player who left.
+   *
+   * @param player the player
+   */
+  void forget(final Player player) {
+    final UUID playerId = player.getUniqueId();
+    this.answers.remove(playerId);
+    for (final Map<UUID, Boolean> viewers : this.answers.values()) {
+      viewers.remove(playerId);
+    }
+  }
+}
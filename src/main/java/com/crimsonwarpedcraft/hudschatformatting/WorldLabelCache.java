@@ -0,0 +1,61 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.bukkit.World;
+
+/**
+ * Per-world {world} and {world_alias} values.
+ *
+ * <p>Entries are filled on first use and dropped when the world loads or unloads. An entry also
+ * remembers the settings snapshot and integration bindings it was built from, so a reload or a
+ * Multiverse enable/disable makes it stale without a separate invalidation pass. A hit is one
+ * map lookup plus two reference comparisons.
+ */
+final class WorldLabelCache {
+
+  private final Map<UUID, Labels> labels = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the labels for a world, rebuilding them if they are missing or stale.
+   *
+   * @param world the world
+   * @param settings the current settings snapshot
+   * @param bindingGeneration the current integration binding generation
+   * @param loader builds fresh labels
+   * @return the labels
+   */
+  Labels get(
+      final World world,
+      final ChatSettings settings,
+      final long bindingGeneration,
+      final Function<World, Labels> loader) {
+    final UUID worldId = world.getUID();
+    final Labels cached = this.labels.get(worldId);
+    if (cached != null
+        && cached.settings() == settings
+        && cached.bindingGeneration() == bindingGeneration) {
+      return cached;
+    }
+
+    final Labels loaded = loader.apply(world);
+    this.labels.put(worldId, loaded);
+    return loaded;
+  }
+
+  void invalidate(final World world) {
+    this.labels.remove(world.getUID());
+  }
+
+  /**
+   * Display values for one world.
+   *
+   * @param name the name from chat.world-name-formats
+   * @param alias the Multiverse alias, or the world name without one
+   * @param settings the settings snapshot the name was built from
+   * @param bindingGeneration the integration binding generation the alias was read from
+   */
+  record Labels(String name, String alias, ChatSettings settings, long bindingGeneration) {}
+}
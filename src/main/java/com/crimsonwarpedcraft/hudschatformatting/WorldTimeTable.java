@@ -0,0 +1,60 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import java.util.Locale;
+
+/**
+ * Precomputed {world_time_24} and {world_time_12} values for every in-game minute.
+ *
+ * <p>A Minecraft day is 24000 ticks starting at 06:00 with 1000 ticks per hour, so only 1440
+ * distinct values exist per format. Both tables are built once when the class loads; a lookup
+ * is a modulo, a little integer arithmetic and an array load, with no allocation.
+ */
+final class WorldTimeTable {
+
+  private static final int MINUTES_PER_DAY = 1440;
+  private static final long TICKS_PER_DAY = 24000L;
+  private static final long TICKS_PER_HOUR = 1000L;
+  private static final long DAY_START_OFFSET = 6000L;
+  private static final String[] TIME_24 = new String[MINUTES_PER_DAY];
+  private static final String[] TIME_12 = new String[MINUTES_PER_DAY];
+
+  static {
+    for (int minuteOfDay = 0; minuteOfDay < MINUTES_PER_DAY; minuteOfDay++) {
+      final int hour24 = minuteOfDay / 60;
+      final int minute = minuteOfDay % 60;
+      final int hour12 = hour24 % 12 == 0 ? 12 : hour24 % 12;
+      TIME_24[minuteOfDay] =
+          String.format(Locale.ENGLISH, "%02d:%02d", hour24, minute).intern();
+      TIME_12[minuteOfDay] = String.format(
+          Locale.ENGLISH, "%d:%02d %s", hour12, minute, hour24 < 12 ? "AM" : "PM").intern();
+    }
+  }
+
+  private WorldTimeTable() {
+  }
+
+  /**
+   * Returns the 24-hour clock time for a world time.
+   *
+   * @param worldTicks the value of {@code World#getTime()}
+   * @return the time as HH:mm
+   */
+  static String time24(final long worldTicks) {
+    return TIME_24[minuteOfDay(worldTicks)];
+  }
+
+  /**
+   * Returns the 12-hour clock time for a world time.
+   *
+   * @param worldTicks the value of {@code World#getTime()}
+   * @return the time as h:mm AM/PM
+   */
+  static String time12(final long worldTicks) {
+    return TIME_12[minuteOfDay(worldTicks)];
+  }
+
+  private static int minuteOfDay(final long worldTicks) {
+    final long tickOfDay = Math.floorMod(worldTicks + DAY_START_OFFSET, TICKS_PER_DAY);
+    return (int) (tickOfDay * 60L / TICKS_PER_HOUR);
+  }
+}
@@ -0,0 +1,184 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for LegacyTextParser.
+ *
+ * <p>The golden tests compare the parser against the section-sign translation and legacy
+ * serializer it replaced. Components are flattened into runs of text with their effective
+ * color and decorations, since the parser builds a flatter tree than the serializer.
+ */
+public class LegacyTextParserTest {
+
+  private static final char SECTION_SIGN = (char) 167;
+  private static final LegacyComponentSerializer SECTION_SERIALIZER =
+      LegacyComponentSerializer.builder().character(SECTION_SIGN).hexColors().build();
+  private static final boolean[][] PERMISSIONS = {
+      {true, true}, {true, false}, {false, true}};
+  private static final String[] GOLDEN_CORPUS = {
+      "",
+      "hello world",
+      "&ahello",
+      "&Ahello",
+      "hi &cthere",
+      "&lbold &cred",
+      "&cred &lbold red",
+      "&c&lbold red",
+      "&l&cjust red",
+      "&a&bjust aqua",
+      "&lbold&r plain",
+      "&l&o&nstacked &rreset",
+      "&kobfuscated &mstruck",
+      "trailing &",
+      "trailing &c",
+      "&&a double",
+      "&z not a code",
+      "& space",
+      "50% & 100%",
+      "&x&f&f&a&a&0&0hex",
+      "&X&F&F&A&A&0&0upper hex",
+      "&x&f&f&a&a&0hex too short",
+      "&x&f&f&a&a&0&zbad digit",
+      "&xno hex",
+      "&x&f&f&a&a&0&0&lhex bold",
+      "&l&x&f&f&a&a&0&0hex drops bold",
+      "&x&+&a&b&c&d&esigned digits",
+      "before &x&1&2&3&4&5&6 after &r reset",
+      "&x&1&2&3&4&5&6&x&a&b&c&d&e&ftwo hex",
+      "a&x&1&2&3&4&5&6",
+      "&xabcdefghij&cmalformed hex swallows code",
+      "K kelvin &K kelvin code",
+      "&#ff00ffnot hex",
+      "emoji 😀 &cred 😀",
+  };
+
+  @Test
+  public void matchesSerializerOnGoldenCorpus() {
+    for (final String input : GOLDEN_CORPUS) {
+      for (final boolean[] permissions : PERMISSIONS) {
+        assertMatchesSerializer(input, permissions[0], permissions[1]);
+      }
+    }
+  }
+
+  @Test
+  public void matchesSerializerOnRandomInput() {
+    final Random random = new Random(20260603L);
+    final String alphabet = "&&&&&xXlLrR0f9aAbcde+z #";
+    for (int round = 0; round < 20000; round++) {
+      final StringBuilder input = new StringBuilder();
+      final int length = random.nextInt(40);
+      for (int index = 0; index < length; index++) {
+        input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      final boolean[] permissions = PERMISSIONS[random.nextInt(PERMISSIONS.length)];
+      assertMatchesSerializer(input.toString(), permissions[0], permissions[1]);
+    }
+  }
+
+  @Test
+  public void returnsPlainTextWithoutCodes() {
+    assertEquals(Component.text("no codes & here"),
+        LegacyTextParser.parse("no codes & here", true, true));
+  }
+
+  private static void assertMatchesSerializer(
+      final String input, final boolean allowColors, final boolean allowFormats) {
+    final Component expected =
+        SECTION_SERIALIZER.deserialize(translateAmpersandCodes(input, allowColors, allowFormats));
+    final Component actual = LegacyTextParser.parse(input, allowColors, allowFormats);
+    assertEquals(flatten(expected), flatten(actual),
+        () -> "input=" + input + " colors=" + allowColors + " formats=" + allowFormats);
+  }
+
+  /**
+   * The translation step the parser replaced.
+   */
+  private static String translateAmpersandCodes(
+      final String message, final boolean allowColors, final boolean allowFormats) {
+    final StringBuilder output = new StringBuilder(message.length());
+    for (int i = 0; i < message.length(); i++) {
+      final char current = message.charAt(i);
+      if (current != '&' || i + 1 >= message.length()) {
+        output.append(current);
+        continue;
+      }
+
+      final char code = Character.toLowerCase(message.charAt(i + 1));
+      if (isAllowedCode(code, allowColors, allowFormats)) {
+        output.append(SECTION_SIGN).append(code);
+        i++;
+        continue;
+      }
+
+      output.append(current);
+    }
+    return output.toString();
+  }
+
+  private static boolean isAllowedCode(
+      final char code, final boolean allowColors, final boolean allowFormats) {
+    if (allowColors && "0123456789abcdefx".indexOf(code) >= 0) {
+      return true;
+    }
+    if (allowFormats && "klmno".indexOf(code) >= 0) {
+      return true;
+    }
+    return code == 'r' && (allowColors || allowFormats);
+  }
+
+  private static List<Run> flatten(final Component component) {
+    final List<Run> runs = new ArrayList<>();
+    flatten(component, null, EnumSet.noneOf(TextDecoration.class), runs);
+    return runs;
+  }
+
+  private static void flatten(
+      final Component component,
+      final Integer parentColor,
+      final Set<TextDecoration> parentDecorations,
+      final List<Run> runs) {
+    final Style style = component.style();
+    final TextColor ownColor = style.color();
+    final Integer color = ownColor == null ? parentColor : Integer.valueOf(ownColor.value());
+    final Set<TextDecoration> decorations = EnumSet.noneOf(TextDecoration.class);
+    for (final TextDecoration decoration : TextDecoration.values()) {
+      final TextDecoration.State state = style.decoration(decoration);
+      if (state == TextDecoration.State.TRUE
+          || state == TextDecoration.State.NOT_SET && parentDecorations.contains(decoration)) {
+        decorations.add(decoration);
+      }
+    }
+
+    if (component instanceof TextComponent text && !text.content().isEmpty()) {
+      final Run last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+      if (last != null
+          && Objects.equals(last.color(), color)
+          && last.decorations().equals(decorations)) {
+        runs.set(runs.size() - 1, new Run(last.text() + text.content(), color, decorations));
+      } else {
+        runs.add(new Run(text.content(), color, decorations));
+      }
+    }
+    for (final Component child : component.children()) {
+      flatten(child, color, decorations, runs);
+    }
+  }
+
+  private record Run(String text, Integer color, Set<TextDecoration> decorations) {}
+}
@@ -0,0 +1,166 @@
+package com.crimsonwarpedcraft.hudschatformatting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for ReplacementEngine.
+ *
+ * <p>The differential tests compare the engine against the sequential {@code replaceAll} loop it
+ * replaced, using rule sets whose matches cannot overlap.
+ */
+public class ReplacementEngineTest {
+
+  private static final Logger LOGGER = Logger.getLogger(ReplacementEngineTest.class.getName());
+
+  @Test
+  public void returnsSameInstanceWhenNothingMatches() {
+    final ReplacementEngine engine = compile(rules("foo", "bar"), false, false);
+    final String message = "nothing to see here";
+    assertSame(message, engine.apply(message));
+  }
+
+  @Test
+  public void matchesSequentialReplacementOnFixedCases() {
+    assertSequentialEquivalent(rules("darn", "d***"), "darn it, DARN it", false, false);
+    assertSequentialEquivalent(rules("darn", "d***"), "darn it, DARN it", true, false);
+    assertSequentialEquivalent(rules("ass", "***"), "assume the class is ass", false, true);
+    assertSequentialEquivalent(
+        rules("foo", "[f]", "bar", "[b]", "baz", "[z]"), "foo bar baz foobarbaz", false, false);
+    assertSequentialEquivalent(
+        rules("regex:\\d{3}-\\d{4}", "<phone>", "hello", "hi"),
+        "hello, call 555-1234 or 555-9876", false, false);
+    assertSequentialEquivalent(rules("cost", "$1 \\ $0"), "the cost is high", false, false);
+    assertSequentialEquivalent(rules("straße", "road"), "STRASSE Straße STRAßE", false, false);
+    assertSequentialEquivalent(rules("ǆ", "dz"), "ǅ Ǆ ǆ", false, true);
+    assertSequentialEquivalent(rules("😀", ":)"), "hi 😀!", false, false);
+    assertSequentialEquivalent(rules("regex:[", "bracket"), "a [ b", false, false);
+    assertSequentialEquivalent(rules("regex:x*", "-"), "axxb", false, false);
+    assertSequentialEquivalent(rules("spam", ""), "spam and eggs", false, false);
+  }
+
+  @Test
+  public void prefersLongestMatchAtSamePosition() {
+    final ReplacementEngine engine = compile(rules("foo", "1", "foobar", "2"), false, false);
+    assertEquals("2 1", engine.apply("foobar foo"));
+  }
+
+  @Test
+  public void prefersEarlierRuleForEqualMatches() {
+    final ReplacementEngine engine =
+        compile(rules("regex:b.d", "first", "bad", "second"), false, false);
+    assertEquals("first", engine.apply("bad"));
+  }
+
+  @Test
+  public void prefersLeftmostMatchOverLongerOverlappingMatch() {
+    final ReplacementEngine engine = compile(rules("ab", "1", "bcdef", "2"), false, false);
+    assertEquals("1cdef", engine.apply("abcdef"));
+  }
+
+  @Test
+  public void doesNotRescanReplacementText() {
+    final ReplacementEngine engine = compile(rules("cat", "dog", "dog", "wolf"), false, false);
+    assertEquals("dog wolf", engine.apply("cat dog"));
+  }
+
+  @Test
+  public void matchesSequentialReplacementOnRandomDisjointRules() {
+    // Each group of letters has at most one rule and every replacement is digits, so no two
+    // rules can match overlapping text and no replacement can create a new match.
+    final String[] groups = {"ab", "cd", "ef", "gh", "ij"};
+    final Random random = new Random(20260517L);
+    for (int round = 0; round < 5_000; round++) {
+      final boolean caseSensitive = random.nextBoolean();
+      final boolean wholeWordOnly = random.nextBoolean();
+      final Map<String, String> replacementRules = new LinkedHashMap<>();
+      for (final String group : groups) {
+        if (random.nextInt(4) == 0) {
+          continue;
+        }
+        final String keyword = random.nextInt(4) == 0
+            ? "regex:[" + group + "]{" + (1 + random.nextInt(2)) + "," + (2 + random.nextInt(3))
+                + "}"
+            : randomText(random, group, 1 + random.nextInt(3));
+        replacementRules.put(keyword, randomText(random, "0123456789", 1 + random.nextInt(3)));
+      }
+      final String message = randomText(random, "abcdefghijABCDEFGHIJ -.", random.nextInt(40));
+      assertSequentialEquivalent(replacementRules, message, caseSensitive, wholeWordOnly);
+    }
+  }
+
+  private static void assertSequentialEquivalent(
+      final Map<String, String> replacementRules,
+      final String message,
+      final boolean caseSensitive,
+      final boolean wholeWordOnly) {
+    final ReplacementEngine engine = compile(replacementRules, caseSensitive, wholeWordOnly);
+    assertEquals(
+        sequentialReplace(replacementRules, message, caseSensitive, wholeWordOnly),
+        engine.apply(message),
+        () -> "rules=" + replacementRules + " message=\"" + message + "\" caseSensitive="
+            + caseSensitive + " wholeWordOnly=" + wholeWordOnly);
+  }
+
+  /**
+   * The replacement loop used before the single-pass engine, kept as the reference behavior.
+   */
+  private static String sequentialReplace(
+      final Map<String, String> replacementRules,
+      final String message,
+      final boolean caseSensitive,
+      final boolean wholeWordOnly) {
+    String output = message;
+    for (final Map.Entry<String, String> entry : replacementRules.entrySet()) {
+      final String rule = entry.getKey();
+      final boolean regexRule = rule.regionMatches(true, 0, "regex:", 0, "regex:".length());
+      final String patternText = regexRule
+          ? rule.substring("regex:".length())
+          : Pattern.quote(rule);
+      final String boundedPattern = !regexRule && wholeWordOnly
+          ? "\\b" + patternText + "\\b"
+          : patternText;
+      final int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+      Pattern pattern;
+      try {
+        pattern = Pattern.compile(boundedPattern, flags);
+      } catch (PatternSyntaxException ex) {
+        pattern = Pattern.compile(Pattern.quote(rule), flags);
+      }
+      output = pattern.matcher(output).replaceAll(Matcher.quoteReplacement(entry.getValue()));
+    }
+    return output;
+  }
+
+  private static ReplacementEngine compile(
+      final Map<String, String> replacementRules,
+      final boolean caseSensitive,
+      final boolean wholeWordOnly) {
+    return ReplacementEngine.compile(replacementRules, caseSensitive, wholeWordOnly, LOGGER);
+  }
+
+  private static Map<String, String> rules(final String... keywordsAndReplacements) {
+    final Map<String, String> rules = new LinkedHashMap<>();
+    for (int i = 0; i < keywordsAndReplacements.length; i += 2) {
+      rules.put(keywordsAndReplacements[i], keywordsAndReplacements[i + 1]);
+    }
+    return rules;
+  }
+
+  private static String randomText(final Random random, final String alphabet, final int length) {
+    final StringBuilder text = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    }
+    return text.toString();
+  }
+}